@@ -0,0 +1,52 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.admission.AdmissionControl;
+import com.apibanking.shop.admission.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What admission control adds to every request: taking and giving back a slot in the endpoint
+ * and total limits, with the latency sample, from as many threads as a host has event loops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class AdmissionBenchmark {
+
+    private AdmissionControl admission;
+
+    @Setup
+    public void setup() {
+        // Limits high enough that no call is rejected
+        admission = new AdmissionControl(true, 1_000, 1, 10_000, 10_000, 2.0, Duration.ofMillis(20), 0.9,
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean admitAndRelease() {
+        AdmissionControl.Permit permit = admission.tryAcquire("getById", Priority.CRITICAL);
+        if (permit == null) {
+            return false;
+        }
+        permit.release(true);
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.dto.CatalogStats;
+import com.apibanking.shop.dto.ProductPage;
+import com.apibanking.shop.dto.StockLevel;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.service.InMemoryProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an ops dashboard refresh costs: the maintained statistics and low-stock page against the
+ * full catalog scan that dashboards used to aggregate on the client. One product in a hundred is
+ * reserved down to five units, so the low-stock page is full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogStatisticsBenchmark {
+
+    private static final int CATALOG_SIZE = 50_000;
+    private static final int THRESHOLD = 10;
+
+    private InMemoryProductService service;
+
+    @Setup
+    public void setup() {
+        service = new InMemoryProductService(CATALOG_SIZE);
+        for (long id = 1; id <= CATALOG_SIZE; id += 100) {
+            service.reserveStock(id, 995).await().indefinitely();
+        }
+    }
+
+    @Benchmark
+    public CatalogStats statistics() {
+        return service.catalogStats();
+    }
+
+    @Benchmark
+    public ProductPage<StockLevel> lowStockPage() {
+        return service.lowStock(THRESHOLD, null, 50).await().indefinitely();
+    }
+
+    @Benchmark
+    public void fullScan(Blackhole blackhole) {
+        double value = 0;
+        long lowStock = 0;
+        for (Product product : service.streamAll().subscribe().asIterable()) {
+            value += product.price * product.quantity;
+            if (product.quantity <= THRESHOLD) {
+                lowStock++;
+            }
+        }
+        blackhole.consume(value);
+        blackhole.consume(lowStock);
+    }
+}
@@ -0,0 +1,89 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.dto.ImportReport;
+import com.apibanking.shop.service.CatalogFormat;
+import com.apibanking.shop.service.InMemoryCatalogTransfer;
+import com.apibanking.shop.service.InMemoryProductService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting and importing a 10,000 product catalog in each format, without a database: the
+ * encoding, parsing and validation cost per catalog. The export benchmark also reports the
+ * {@code bytes} and {@code exports} secondary results; their ratio is the size of one export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogTransferBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"NDJSON", "CSV"})
+    public CatalogFormat format;
+
+    private InMemoryCatalogTransfer transfer;
+    private byte[] exported;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ExportSize {
+
+        public long bytes;
+        public long exports;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            exports = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        transfer = new InMemoryCatalogTransfer(new InMemoryProductService(CATALOG_SIZE));
+        exported = exportBody();
+    }
+
+    @Benchmark
+    public byte[] export(ExportSize size) {
+        byte[] body = exportBody();
+        size.bytes += body.length;
+        size.exports++;
+        return body;
+    }
+
+    private byte[] exportBody() {
+        // Mirrors the response: every streamed block is followed by a line break
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 * 1024 * 1024);
+        transfer.export(format).subscribe().asIterable().forEach(block -> {
+            out.writeBytes(block);
+            out.write('\n');
+        });
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ImportReport importCatalog() throws IOException {
+        return transfer.importCatalog(new ByteArrayInputStream(exported), format);
+    }
+}
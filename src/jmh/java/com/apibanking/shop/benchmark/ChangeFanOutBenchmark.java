@@ -0,0 +1,69 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.dto.ProductChangeType;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.events.ProductChangeBroadcaster;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishing one change to thousands of change-stream subscribers that keep up with the stream.
+ * The score is the time until every subscriber has been handed the change, without the SSE
+ * serialization and network write that follow in the real endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeFanOutBenchmark {
+
+    @Param({"1000", "5000", "10000"})
+    public int subscribers;
+
+    private final LongAdder delivered = new LongAdder();
+    private final List<Cancellable> subscriptions = new ArrayList<>();
+    private ProductChangeBroadcaster broadcaster;
+    private Product product;
+
+    @Setup
+    public void setup() {
+        broadcaster = new ProductChangeBroadcaster(10_000, 1_000);
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(broadcaster.changes(null).subscribe().with(change -> delivered.increment()));
+        }
+        product = new Product("Laptop Pro Max", "High-performance laptop with advanced features.", 1350.0, 45);
+        product.id = 1L;
+        product.version = 0L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscriptions.forEach(Cancellable::cancel);
+        if (delivered.sum() == 0) {
+            throw new IllegalStateException("No change reached a subscriber");
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        broadcaster.publish(ProductChangeType.UPDATED, product.id, product, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.service.InMemoryProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same hot-SKU workload as {@link StockReservationBenchmark}, with the SKU served by the
+ * striped in-memory counter instead of one conditional update per reservation. Flushing is left
+ * out: it runs once per interval, independently of the reservation rate.
+ * <p>
+ * Against a real database the per-reservation path also pays a transaction and a row lock,
+ * so the gap there is much larger than between the two in-memory stand-ins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class HotSkuStockBenchmark {
+
+    private static final long HOT_SKU = 1L;
+
+    private InMemoryProductService service;
+
+    @Setup
+    public void setup() {
+        service = new InMemoryProductService(100, List.of(HOT_SKU));
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean reserved = service.reserveStock(HOT_SKU, 1).await().indefinitely();
+        if (reserved) {
+            service.releaseStock(HOT_SKU, 1).await().indefinitely();
+        }
+        return reserved;
+    }
+}
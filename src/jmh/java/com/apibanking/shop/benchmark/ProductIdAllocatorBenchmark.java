@@ -0,0 +1,59 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.repository.ProductIdAllocator;
+import io.smallrye.mutiny.Uni;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ID allocation for concurrent inserts, with every block reservation paying a simulated database
+ * round trip. A block size of 1 is the old behaviour of fetching each ID from the sequence table;
+ * larger blocks spread one round trip over that many inserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class ProductIdAllocatorBenchmark {
+
+    private static final Duration ROUND_TRIP = Duration.ofMillis(1);
+
+    @Param({"1", "50", "1000"})
+    public int blockSize;
+
+    private ProductIdAllocator allocator;
+
+    @Setup
+    public void setup() {
+        AtomicLong lastId = new AtomicLong();
+        allocator = new ProductIdAllocator(blockSize) {
+            @Override
+            protected Uni<Long> reserveBlock(long count) {
+                return Uni.createFrom().item(() -> lastId.addAndGet(count))
+                        .onItem().delayIt().by(ROUND_TRIP);
+            }
+        };
+    }
+
+    @Benchmark
+    public Long nextId() {
+        return allocator.nextId().await().indefinitely();
+    }
+}
@@ -0,0 +1,75 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.service.InMemoryProductService;
+import io.smallrye.mutiny.Uni;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of cache misses right after the cache was emptied: 64 concurrent lookups over 16 IDs,
+ * as when a popular listing is requested by many clients at once after a deploy.
+ * <p>
+ * Each burst is resolved by one batched query instead of 64 single-row ones. The {@code queries}
+ * and {@code lookups} secondary results count both; their ratio is the queries per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductLoaderBenchmark {
+
+    private static final int LOOKUPS = 64;
+    private static final long DISTINCT_IDS = 16;
+
+    private InMemoryProductService service;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Queries {
+
+        public long queries;
+        public long lookups;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+            lookups = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        service = new InMemoryProductService(10_000);
+    }
+
+    @Benchmark
+    public List<Product> missBurst(Queries counts) {
+        long queriesBefore = service.lookupQueries();
+        service.evictCache();
+        List<Uni<Product>> burst = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            burst.add(service.getById(1 + i % DISTINCT_IDS));
+        }
+        List<Product> products = Uni.join().all(burst).andFailFast().await().indefinitely();
+        counts.lookups += LOOKUPS;
+        counts.queries += service.lookupQueries() - queriesBefore;
+        return products;
+    }
+}
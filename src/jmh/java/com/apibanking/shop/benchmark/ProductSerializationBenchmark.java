@@ -0,0 +1,125 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson cost of writing and reading {@link Product} payloads of the sizes the listing endpoints return,
+ * as JSON, as CBOR and as gzipped JSON.
+ * <p>
+ * The list benchmarks also report the bytes they put on the wire as the {@code bytes} and
+ * {@code payloads} secondary results; bytes per payload is their ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int listSize;
+
+    private ObjectWriter listWriter;
+    private ObjectWriter cborListWriter;
+    private ObjectMapper mapper;
+    private ObjectMapper cborMapper;
+    private Product product;
+    private List<Product> products;
+    private byte[] productJson;
+    private byte[] productCbor;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+
+        public long bytes;
+        public long payloads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            payloads = 0;
+        }
+
+        byte[] count(byte[] payload) {
+            bytes += payload.length;
+            payloads++;
+            return payload;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = new ObjectMapper();
+        listWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Product.class));
+        cborMapper = mapper.copyWith(new CBORFactory());
+        cborListWriter = cborMapper.writerFor(cborMapper.getTypeFactory().constructCollectionType(List.class, Product.class));
+        products = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            Product p = new Product("Laptop Pro Max " + id, "High-performance laptop with advanced features.", 1350.0, 45);
+            p.id = id;
+            products.add(p);
+        }
+        product = products.get(0);
+        productJson = mapper.writeValueAsBytes(product);
+        productCbor = cborMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return mapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeProductList(WireSize wire) throws Exception {
+        return wire.count(listWriter.writeValueAsBytes(products));
+    }
+
+    @Benchmark
+    public byte[] serializeProductListCbor(WireSize wire) throws Exception {
+        return wire.count(cborListWriter.writeValueAsBytes(products));
+    }
+
+    // What ResponseCompression adds on top of serializeProductList for a large listing
+    @Benchmark
+    public byte[] serializeProductListGzip(WireSize wire) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            listWriter.writeValue(gzip, products);
+        }
+        return wire.count(out.toByteArray());
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws Exception {
+        return mapper.readValue(productJson, Product.class);
+    }
+
+    @Benchmark
+    public Product deserializeProductCbor() throws Exception {
+        return cborMapper.readValue(productCbor, Product.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.dto.PriceSortParams;
+import com.apibanking.shop.dto.ProductPage;
+import com.apibanking.shop.dto.StockCheckLine;
+import com.apibanking.shop.dto.StockCheckResult;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.DomainException;
+import com.apibanking.shop.service.InMemoryProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@code ProductService} Mutiny pipelines over an in-memory stand-in for the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private InMemoryProductService service;
+    private List<StockCheckLine> cart;
+
+    @Setup
+    public void setup() {
+        service = new InMemoryProductService(CATALOG_SIZE);
+        cart = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            cart.add(new StockCheckLine(id * 37, 2));
+        }
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, CATALOG_SIZE + 1);
+    }
+
+    @Benchmark
+    public Product getByIdCached() {
+        return service.getById(randomId()).await().indefinitely();
+    }
+
+    @Benchmark
+    public Product getByIdUncached() {
+        service.evictCache();
+        return service.getById(randomId()).await().indefinitely();
+    }
+
+    // The 404 a bot probing unknown IDs gets, down to the problem body; compare with getByIdCached
+    @Benchmark
+    public byte[] getByIdMissing() {
+        return service.getById(CATALOG_SIZE + randomId())
+                .map(product -> new byte[0])
+                .onFailure(DomainException.class)
+                .recoverWithItem(failure -> ((DomainException) failure).problem().body(failure.getMessage()))
+                .await().indefinitely();
+    }
+
+    @Benchmark
+    public Boolean checkStock() {
+        return service.checkStock(randomId(), 3).await().indefinitely();
+    }
+
+    @Benchmark
+    public StockCheckResult checkStockCart() {
+        return service.checkStock(cart).await().indefinitely();
+    }
+
+    @Benchmark
+    public ProductPage<Product> getPage() {
+        return service.getPage(String.valueOf(randomId()), 50).await().indefinitely();
+    }
+
+    @Benchmark
+    public ProductPage<Product> sortByPrice() {
+        return service.sortByPrice(new PriceSortParams(10.0, 90.0, "asc", 50, null)).await().indefinitely();
+    }
+
+    @Benchmark
+    public ProductPage<Product> search() {
+        return service.search("product 12", null, 20).await().indefinitely();
+    }
+
+    @Benchmark
+    public Long streamAll() {
+        return service.streamAll().collect().with(java.util.stream.Collectors.counting()).await().indefinitely();
+    }
+}
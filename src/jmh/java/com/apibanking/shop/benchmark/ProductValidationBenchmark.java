@@ -0,0 +1,53 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.entity.Product;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate Validator cost of the {@link Product} constraints, for a valid product and one that
+ * violates every constraint (message interpolation is the expensive part).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductValidationBenchmark {
+
+    private Validator validator;
+    private Product valid;
+    private Product invalid;
+
+    @Setup
+    public void setup() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        valid = new Product("Laptop Pro Max", "High-performance laptop", 1350.0, 45);
+        invalid = new Product("", " ", -1.0, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> validProduct() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> invalidProduct() {
+        return validator.validate(invalid);
+    }
+}
@@ -0,0 +1,51 @@
+package com.apibanking.shop.benchmark;
+
+import com.apibanking.shop.service.InMemoryProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many concurrent reservers on one hot SKU. Each operation reserves and then releases one unit,
+ * so stock never runs out and every reservation contends on the same row.
+ * <p>
+ * The stand-in applies the conditional decrement with a compare-and-set, so this measures the
+ * reservation pipeline and its contention, not MySQL row locking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class StockReservationBenchmark {
+
+    private static final long HOT_SKU = 1L;
+
+    private InMemoryProductService service;
+
+    @Setup
+    public void setup() {
+        service = new InMemoryProductService(100);
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean reserved = service.reserveStock(HOT_SKU, 1).await().indefinitely();
+        if (reserved) {
+            service.releaseStock(HOT_SKU, 1).await().indefinitely();
+        }
+        return reserved;
+    }
+}
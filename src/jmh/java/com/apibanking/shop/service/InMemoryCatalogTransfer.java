@@ -0,0 +1,25 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+/**
+ * {@link CatalogTransfer} over an {@link InMemoryProductService}. Imported chunks are validated
+ * and then dropped, so repeated imports measure reading and validation without growing the catalog.
+ */
+public class InMemoryCatalogTransfer extends CatalogTransfer {
+
+    public InMemoryCatalogTransfer(InMemoryProductService service) {
+        productService = service;
+        mapper = new ObjectMapper();
+        chunkSize = 500;
+        maxErrors = 100;
+        init();
+    }
+
+    @Override
+    protected void writeChunk(List<Product> products) {
+    }
+}
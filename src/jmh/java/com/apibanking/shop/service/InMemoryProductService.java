@@ -0,0 +1,193 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.cache.ProductCache;
+import com.apibanking.shop.cache.ProductVersions;
+import com.apibanking.shop.dto.StockLevel;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.events.ProductChangeBroadcaster;
+import com.apibanking.shop.metrics.ProductMetrics;
+import com.apibanking.shop.repository.ProductIdAllocator;
+import com.apibanking.shop.search.ProductSearchIndex;
+import com.apibanking.shop.stats.CatalogStatistics;
+import com.apibanking.shop.stock.StockCounterEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import jakarta.validation.Validation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link ProductService} with its persistence hooks replaced by in-memory maps, so benchmarks
+ * measure the service's own Mutiny pipelines rather than a database.
+ * <p>
+ * The price listing ignores range predicates and cursors and always serves the cheapest rows;
+ * stock updates use a compare-and-set loop with the same semantics as the conditional UPDATE.
+ */
+public class InMemoryProductService extends ProductService {
+
+    private final ConcurrentSkipListMap<Long, Product> products = new ConcurrentSkipListMap<>();
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private volatile List<Product> byPrice = List.of();
+    private final LongAdder lookupQueries = new LongAdder();
+
+    public InMemoryProductService(int catalogSize) {
+        this(catalogSize, List.of());
+    }
+
+    /**
+     * @param hotSkus products whose stock goes through the in-memory counters
+     */
+    public InMemoryProductService(int catalogSize, List<Long> hotSkus) {
+        defaultPageSize = 50;
+        maxPageSize = 500;
+        streamChunkSize = 200;
+        batchChunkSize = 500;
+        maxStockCheckLines = 1000;
+        maxBatchItems = 5000;
+        lowStockThreshold = 10;
+        productCache = new ProductCache(10_000, Duration.ofMinutes(10));
+        searchIndex = new ProductSearchIndex();
+        productVersions = new ProductVersions();
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        metrics = new ProductMetrics(new SimpleMeterRegistry());
+        replicaRouting = new ReplicaRouting(false, Duration.ofSeconds(2), Duration.ofSeconds(5), metrics);
+        changeBroadcaster = new ProductChangeBroadcaster(10_000, 1_000);
+        stockCounters = new StockCounterEngine(Optional.of(hotSkus), 16);
+        productLoader = new ProductLoader(Duration.ZERO, 100);
+        catalogStatistics = new CatalogStatistics();
+        AtomicLong lastId = new AtomicLong(catalogSize);
+        idAllocator = new ProductIdAllocator(100) {
+            @Override
+            protected Uni<Long> reserveBlock(long count) {
+                return Uni.createFrom().item(lastId.addAndGet(count));
+            }
+        };
+
+        for (long id = 1; id <= catalogSize; id++) {
+            Product product = new Product("Product " + id, "Description of product " + id,
+                    (double) (id * 7919 % 10_000) / 100, 1_000);
+            product.id = id;
+            product.version = 0L;
+            products.put(id, product);
+            stock.put(id, new AtomicInteger(product.quantity));
+            searchIndex.put(product);
+            catalogStatistics.put(product);
+        }
+        List<Product> sorted = new ArrayList<>(products.values());
+        sorted.sort(Comparator.comparing((Product p) -> p.price).thenComparing(p -> p.id));
+        byPrice = List.copyOf(sorted);
+    }
+
+    public void evictCache() {
+        productCache.invalidateAll();
+    }
+
+    /**
+     * Number of lookup queries issued for cache misses since the service was built.
+     */
+    public long lookupQueries() {
+        return lookupQueries.sum();
+    }
+
+    @Override
+    protected <T> Uni<T> runInTransaction(Supplier<Uni<T>> work) {
+        return work.get();
+    }
+
+    @Override
+    protected Uni<Void> clearSession() {
+        return Uni.createFrom().voidItem();
+    }
+
+    @Override
+    protected Uni<List<Product>> loadProductsByIds(List<Long> ids) {
+        lookupQueries.increment();
+        List<Product> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+        return Uni.createFrom().item(found);
+    }
+
+    @Override
+    protected Uni<List<Product>> listProductsAfter(long afterId, int limit) {
+        return Uni.createFrom().item(products.tailMap(afterId, false).values().stream().limit(limit).toList());
+    }
+
+    @Override
+    protected Uni<List<Product>> listProductsByPrice(String where, Parameters parameters, Sort sort, int limit) {
+        return Uni.createFrom().item(byPrice.subList(0, Math.min(limit, byPrice.size())));
+    }
+
+    @Override
+    protected Uni<List<StockLevel>> listStockLevels(List<Long> ids) {
+        List<StockLevel> levels = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            AtomicInteger quantity = stock.get(id);
+            if (quantity != null) {
+                levels.add(new StockLevel(id, quantity.get()));
+            }
+        }
+        return Uni.createFrom().item(levels);
+    }
+
+    @Override
+    protected Uni<Integer> reserveQuantity(Long id, int count) {
+        AtomicInteger quantity = stock.get(id);
+        if (quantity == null) {
+            return Uni.createFrom().item(0);
+        }
+        int current;
+        do {
+            current = quantity.get();
+            if (current < count) {
+                return Uni.createFrom().item(0);
+            }
+        } while (!quantity.compareAndSet(current, current - count));
+        return Uni.createFrom().item(1);
+    }
+
+    @Override
+    protected Uni<Integer> releaseQuantity(Long id, int count) {
+        AtomicInteger quantity = stock.get(id);
+        if (quantity == null) {
+            return Uni.createFrom().item(0);
+        }
+        quantity.addAndGet(count);
+        return Uni.createFrom().item(1);
+    }
+
+    @Override
+    protected Uni<Integer> loadQuantity(Long id) {
+        AtomicInteger quantity = stock.get(id);
+        return Uni.createFrom().item(quantity == null ? null : quantity.get());
+    }
+
+    @Override
+    protected Uni<Set<Long>> applyStockDeltas(Map<Long, Long> deltas) {
+        deltas.forEach((id, delta) -> stock.get(id).addAndGet(Math.toIntExact(delta)));
+        return Uni.createFrom().item(deltas.keySet());
+    }
+
+    @Override
+    protected Uni<Boolean> productExists(Long id) {
+        return Uni.createFrom().item(products.containsKey(id));
+    }
+}
@@ -0,0 +1,114 @@
+package com.apibanking.shop.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows the latency of the requests it lets through (AIMD).
+ * <p>
+ * The baseline is the lowest latency seen recently, which is what a request costs when nothing
+ * queues. A request that took more than {@code tolerance} times the baseline, and more than
+ * {@code floor}, means requests are queueing somewhere behind the limit, so the limit is cut by
+ * {@code backoff}. Only requests admitted after the last cut can cut again: the ones already
+ * running were admitted under the old limit and would otherwise shrink it once each. Every
+ * request under the threshold grows the limit by {@code 1 / limit}, about one per round of
+ * requests, as long as at least half of it is in use.
+ */
+public final class AdaptiveLimit {
+
+    // How fast the baseline follows latencies above it, so a backend that got slower for good
+    // eventually becomes the new normal
+    private static final double BASELINE_DRIFT = 0.001;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long floorNanos;
+    private final double backoff;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private double baselineNanos = Double.NaN;
+    private boolean decreased;
+    private long lastDecreaseNanos;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, long floorNanos, double backoff) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limit range " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.floorNanos = floorNanos;
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * A limit that stays at {@code limit}, for slots that are only ever released without a
+     * latency sample.
+     */
+    public static AdaptiveLimit fixed(int limit) {
+        return new AdaptiveLimit(limit, limit, limit, 1.0, 0, 1.0);
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit, and at least one, are in use.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot taken at {@code startNanos} by a request that ended at {@code endNanos}
+     * and adjusts the limit to its latency.
+     */
+    public void release(long startNanos, long endNanos) {
+        int active = inFlight.getAndDecrement();
+        onSample(startNanos, endNanos - startNanos, active);
+    }
+
+    /**
+     * Gives back a slot whose request says nothing about latency, such as one the client
+     * abandoned.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long startNanos, long latencyNanos, int active) {
+        if (Double.isNaN(baselineNanos) || latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        } else {
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+        }
+        double current = limit;
+        if (latencyNanos > floorNanos && latencyNanos > baselineNanos * tolerance) {
+            if (!decreased || startNanos - lastDecreaseNanos >= 0) {
+                limit = Math.max(minLimit, current * backoff);
+                decreased = true;
+                lastDecreaseNanos = startNanos + latencyNanos;
+            }
+        } else if (active * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1 / current);
+        }
+    }
+}
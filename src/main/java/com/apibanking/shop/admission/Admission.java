@@ -0,0 +1,17 @@
+package com.apibanking.shop.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a resource method under admission control with the given priority. Methods without it,
+ * such as long-lived streams, are never limited.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Admission {
+
+    Priority value();
+}
@@ -0,0 +1,166 @@
+package com.apibanking.shop.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a request may start now or should be turned away with a 503.
+ * <p>
+ * Each endpoint has its own {@link AdaptiveLimit}, so a slow bulk endpoint cannot shrink the
+ * limit of the cheap ones. All requests also share a fixed total limit, of which each
+ * {@link Priority} may fill only its share. The total does not adapt: its latency samples would
+ * come from every endpoint at once, judged against the baseline of the fastest, so ordinary bulk
+ * requests would keep cutting it and starve the critical ones. Without the limits, requests would
+ * queue for a connection of the reactive MySQL pool without bound and every one of them would get
+ * slower; turning the excess away at once keeps the latency of the admitted ones close to normal.
+ */
+@ApplicationScoped
+public class AdmissionControl {
+
+    static final String TOTAL = "total";
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long floorNanos;
+    private final double backoff;
+    private final long retryAfterSeconds;
+    private final MeterRegistry registry;
+
+    private final AdaptiveLimit total;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Inject
+    public AdmissionControl(@ConfigProperty(name = "product.admission.enabled", defaultValue = "true") boolean enabled,
+                            @ConfigProperty(name = "product.admission.initial-limit", defaultValue = "20") int initialLimit,
+                            @ConfigProperty(name = "product.admission.min-limit", defaultValue = "1") int minLimit,
+                            @ConfigProperty(name = "product.admission.max-limit", defaultValue = "200") int maxLimit,
+                            @ConfigProperty(name = "product.admission.total-limit", defaultValue = "100") int totalLimit,
+                            @ConfigProperty(name = "product.admission.latency-tolerance", defaultValue = "2.0") double tolerance,
+                            @ConfigProperty(name = "product.admission.latency-floor", defaultValue = "20ms") Duration floor,
+                            @ConfigProperty(name = "product.admission.backoff", defaultValue = "0.9") double backoff,
+                            @ConfigProperty(name = "product.admission.retry-after", defaultValue = "1s") Duration retryAfter,
+                            MeterRegistry registry) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.floorNanos = floor.toNanos();
+        this.backoff = backoff;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.registry = registry;
+        this.total = AdaptiveLimit.fixed(totalLimit);
+        registerGauges(TOTAL, total);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Seconds a turned away client is told to wait, for the {@code Retry-After} header.
+     */
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Admits a request to {@code endpoint}, or returns null when it should be turned away. The
+     * permit must be released once the response has been sent.
+     */
+    public Permit tryAcquire(String endpoint, Priority priority) {
+        return tryAcquire(endpoint, priority, System.nanoTime());
+    }
+
+    Permit tryAcquire(String endpoint, Priority priority, long nowNanos) {
+        Endpoint limited = endpoints.computeIfAbsent(endpoint, this::newEndpoint);
+        if (!limited.limit.tryAcquire(1.0)) {
+            limited.rejected(priority).increment();
+            return null;
+        }
+        if (!total.tryAcquire(priority.share())) {
+            limited.limit.release();
+            limited.rejected(priority).increment();
+            return null;
+        }
+        return new Permit(limited.limit, total, nowNanos);
+    }
+
+    private Endpoint newEndpoint(String name) {
+        AdaptiveLimit limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance, floorNanos, backoff);
+        registerGauges(name, limit);
+        Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, Counter.builder("product.admission.rejected")
+                    .description("Requests turned away because the concurrency limit was reached")
+                    .tag("endpoint", name)
+                    .tag("priority", priority.tag())
+                    .register(registry));
+        }
+        return new Endpoint(limit, rejected);
+    }
+
+    private void registerGauges(String name, AdaptiveLimit limit) {
+        Gauge.builder("product.admission.limit", limit, AdaptiveLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("endpoint", name)
+                .register(registry);
+        Gauge.builder("product.admission.in-flight", limit, AdaptiveLimit::inFlight)
+                .description("Requests currently admitted")
+                .tag("endpoint", name)
+                .register(registry);
+    }
+
+    private record Endpoint(AdaptiveLimit limit, Map<Priority, Counter> rejections) {
+
+        Counter rejected(Priority priority) {
+            return rejections.get(priority);
+        }
+    }
+
+    /**
+     * A request's slot in its endpoint's limit and in the total limit. Only the endpoint's limit
+     * learns from the latency of the request.
+     */
+    public static final class Permit {
+
+        private final AdaptiveLimit endpoint;
+        private final AdaptiveLimit total;
+        private final long startNanos;
+
+        Permit(AdaptiveLimit endpoint, AdaptiveLimit total, long startNanos) {
+            this.endpoint = endpoint;
+            this.total = total;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @param completed whether the response was sent in full; a request the client gave up on
+         *                  frees its slot without counting as a latency sample
+         */
+        public void release(boolean completed) {
+            release(completed, System.nanoTime());
+        }
+
+        void release(boolean completed, long nowNanos) {
+            if (completed) {
+                endpoint.release(startNanos, nowNanos);
+            } else {
+                endpoint.release();
+            }
+            total.release();
+        }
+    }
+}
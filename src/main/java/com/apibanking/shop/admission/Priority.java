@@ -0,0 +1,31 @@
+package com.apibanking.shop.admission;
+
+import java.util.Locale;
+
+/**
+ * How much of the total concurrency limit an endpoint may use. Once the limit shrinks under load,
+ * bulk requests are turned away first and the cheap lookups checkout depends on last.
+ */
+public enum Priority {
+
+    CRITICAL(1.0),
+    STANDARD(0.8),
+    BULK(0.5);
+
+    private final double share;
+
+    Priority(double share) {
+        this.share = share;
+    }
+
+    public double share() {
+        return share;
+    }
+
+    /**
+     * Lower-case name, used as the metric tag.
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
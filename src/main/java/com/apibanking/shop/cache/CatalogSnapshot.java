@@ -0,0 +1,203 @@
+package com.apibanking.shop.cache;
+
+import com.apibanking.shop.entity.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary file of the whole catalog, used to warm a new instance without going to MySQL.
+ * <p>
+ * The file is a header (magic, format, write time, product count) followed by one record per
+ * product: ID, a byte flagging the null columns, then the columns that are set, strings as a
+ * length-prefixed UTF-8 run. It is read through a read-only memory map, so loading costs a page
+ * walk rather than a stream of read calls, and written to a sibling file that is then moved over
+ * the old one, so a reader never sees half a snapshot.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x50534E50;
+    private static final int FORMAT = 1;
+    // After the magic, the format and the write time
+    private static final long COUNT_OFFSET = 16;
+
+    private static final int NO_VERSION = 1;
+    private static final int NO_NAME = 1 << 1;
+    private static final int NO_DESCRIPTION = 1 << 2;
+    private static final int NO_PRICE = 1 << 3;
+    private static final int NO_QUANTITY = 1 << 4;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes the products to {@code path}, replacing any previous snapshot, and returns the file size.
+     */
+    public static long write(Path path, List<Product> products) throws IOException {
+        try (Writer writer = open(path)) {
+            writer.append(products);
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Starts a snapshot at {@code path} that is written chunk by chunk. The previous snapshot stays
+     * in place until {@link Writer#commit()}.
+     */
+    public static Writer open(Path path) throws IOException {
+        return new Writer(path.toAbsolutePath());
+    }
+
+    /**
+     * Appends products to a partial snapshot file. The header is written with a count of zero,
+     * which {@link #commit()} patches once every product is in; closing without a commit deletes
+     * the partial file. Every writer has a partial file of its own, so concurrent writes of the
+     * same snapshot never mix: each replaces the snapshot whole, and the last commit wins.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path partial;
+        private final DataOutputStream out;
+        private int count;
+        private boolean committed;
+
+        private Writer(Path target) throws IOException {
+            this.target = target;
+            Files.createDirectories(target.getParent());
+            this.partial = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".partial");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(0);
+        }
+
+        public void append(List<Product> products) throws IOException {
+            for (Product product : products) {
+                out.writeLong(product.id);
+                out.writeByte(flags(product));
+                if (product.version != null) {
+                    out.writeLong(product.version);
+                }
+                writeString(out, product.name);
+                writeString(out, product.description);
+                if (product.price != null) {
+                    out.writeDouble(product.price);
+                }
+                if (product.quantity != null) {
+                    out.writeInt(product.quantity);
+                }
+            }
+            count += products.size();
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Fills in the product count and moves the file over the previous snapshot. Returns the
+         * file size.
+         */
+        public long commit() throws IOException {
+            out.close();
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count), COUNT_OFFSET);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return Files.size(target);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(partial);
+            }
+        }
+    }
+
+    public static List<Product> read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a catalog snapshot");
+            }
+            int format = buffer.getInt();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported catalog snapshot format " + format + " in " + path);
+            }
+            buffer.getLong();
+            int count = buffer.getInt();
+            // A corrupt count must not size the list beyond what the file can hold
+            List<Product> products = new ArrayList<>(Math.max(0, Math.min(count, buffer.remaining())));
+            for (int i = 0; i < count; i++) {
+                Product product = new Product();
+                product.id = buffer.getLong();
+                int flags = buffer.get();
+                product.version = (flags & NO_VERSION) == 0 ? buffer.getLong() : null;
+                product.name = (flags & NO_NAME) == 0 ? readString(buffer) : null;
+                product.description = (flags & NO_DESCRIPTION) == 0 ? readString(buffer) : null;
+                product.price = (flags & NO_PRICE) == 0 ? buffer.getDouble() : null;
+                product.quantity = (flags & NO_QUANTITY) == 0 ? buffer.getInt() : null;
+                products.add(product);
+            }
+            return products;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Catalog snapshot " + path + " is truncated", e);
+        }
+    }
+
+    private static int flags(Product product) {
+        int flags = 0;
+        if (product.version == null) {
+            flags |= NO_VERSION;
+        }
+        if (product.name == null) {
+            flags |= NO_NAME;
+        }
+        if (product.description == null) {
+            flags |= NO_DESCRIPTION;
+        }
+        if (product.price == null) {
+            flags |= NO_PRICE;
+        }
+        if (product.quantity == null) {
+            flags |= NO_QUANTITY;
+        }
+        return flags;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package com.apibanking.shop.cache;
+
+import com.apibanking.shop.dto.CacheStatistics;
+import com.apibanking.shop.entity.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded, in-process cache of products keyed by ID.
+ * <p>
+ * Every invalidation or refresh bumps a stamp; a loader takes the stamp before going to the
+ * database and only publishes its result if no write happened in between, so a slow read can
+ * never put an older row back over a newer one.
+ */
+@ApplicationScoped
+public class ProductCache {
+
+    private final Cache<Long, Product> cache;
+    private final AtomicLong stamp = new AtomicLong();
+
+    @Inject
+    public ProductCache(@ConfigProperty(name = "product.cache.max-size", defaultValue = "10000") long maxSize,
+                        @ConfigProperty(name = "product.cache.expire-after-write", defaultValue = "PT10M") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Product get(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public long stamp() {
+        return stamp.get();
+    }
+
+    public void putIfUnchanged(Product product, long loadStamp) {
+        if (stamp.get() == loadStamp) {
+            cache.put(product.id, product);
+        }
+    }
+
+    /**
+     * Seeds the cache with a product from a snapshot. An entry already there came from this
+     * process's own reads or writes and is kept.
+     */
+    public void warm(Product product) {
+        cache.asMap().putIfAbsent(product.id, product);
+    }
+
+    /**
+     * Replaces a cached product with a newer version of the same row, as found by the
+     * post-snapshot reconciliation; a product that is not cached stays out of the cache.
+     */
+    public void replaceIfNewer(Product product) {
+        boolean[] replaced = new boolean[1];
+        cache.asMap().computeIfPresent(product.id, (id, cached) -> {
+            if (versionOf(cached) < versionOf(product)) {
+                replaced[0] = true;
+                return product;
+            }
+            return cached;
+        });
+        if (replaced[0]) {
+            stamp.incrementAndGet();
+        }
+    }
+
+    public void refresh(Product product) {
+        stamp.incrementAndGet();
+        cache.put(product.id, product);
+    }
+
+    public void invalidate(Long id) {
+        stamp.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        stamp.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.hitRate(), cache.estimatedSize());
+    }
+
+    private static long versionOf(Product product) {
+        return product.version == null ? -1 : product.version;
+    }
+
+    // Run pending evictions now; used by tests that assert on eviction counts
+    void cleanUp() {
+        cache.cleanUp();
+    }
+}
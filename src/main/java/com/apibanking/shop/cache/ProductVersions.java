@@ -0,0 +1,61 @@
+package com.apibanking.shop.cache;
+
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.ProductModifiedException;
+import com.apibanking.shop.exception.ValidationException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.EntityTag;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ETags of the read endpoints and the {@code If-Match} preconditions of the write endpoints.
+ * <p>
+ * A product tag is its id and the entity {@code @Version}, so any instance can check it against
+ * the row. The catalog tag is a per-process counter with an epoch, so a restarted instance never
+ * reissues a tag it handed out before. Callers must take a catalog tag before reading the data it
+ * describes, and writers must bump it only after the new data is visible. A race between the two
+ * can then only cost a redundant 200, never a wrong 304.
+ */
+@ApplicationScoped
+public class ProductVersions {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    public EntityTag catalogTag() {
+        return new EntityTag(epoch + "-" + catalogVersion.get());
+    }
+
+    public EntityTag productTag(Product product) {
+        return new EntityTag(product.id + "-" + product.version);
+    }
+
+    /**
+     * Returns the version a write must match, or null when there is no precondition ({@code If-Match}
+     * absent or {@code *}). A weak tag or a tag of another product can never match.
+     */
+    public Long expectedVersion(Long id, String ifMatch) {
+        String tag = ifMatch == null ? "" : ifMatch.trim();
+        if (tag.isEmpty() || tag.equals("*")) {
+            return null;
+        }
+        if (tag.indexOf(',') >= 0) {
+            throw new ValidationException("If-Match must be a single product ETag or *.");
+        }
+        String prefix = "\"" + id + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not a tag we issued, so it cannot match
+            }
+        }
+        throw new ProductModifiedException("Product with ID " + id + " does not match the If-Match precondition.");
+    }
+
+    public void bump() {
+        catalogVersion.incrementAndGet();
+    }
+}
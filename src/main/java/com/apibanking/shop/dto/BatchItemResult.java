@@ -0,0 +1,37 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "BatchItemResult", description = "Outcome of one item of a batch request.")
+public class BatchItemResult {
+
+    @Schema(description = "Position of the item in the request list.", example = "0")
+    public int index;
+
+    @Schema(description = "ID of the product the item refers to, when known. Items that failed to be created have none.", example = "42")
+    public Long id;
+
+    @Schema(description = "HTTP status the item would have received as a single request.", example = "201")
+    public int status;
+
+    @Schema(description = "Why the item failed, or null on success.")
+    public String error;
+
+    public static BatchItemResult success(int index, Long id, int status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failure(int index, Long id, int status, String error) {
+        return new BatchItemResult(index, id, status, error);
+    }
+
+    public boolean succeeded() {
+        return status < 400;
+    }
+}
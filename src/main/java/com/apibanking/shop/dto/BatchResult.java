@@ -0,0 +1,30 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "BatchResult", description = "Per-item outcome of a batch create, update or delete.")
+public class BatchResult {
+
+    @Schema(description = "Number of items that were applied.", example = "998")
+    public int succeeded;
+
+    @Schema(description = "Number of items that were rejected or failed.", example = "2")
+    public int failed;
+
+    @Schema(description = "One result per request item, in request order.")
+    public List<BatchItemResult> items;
+
+    public static BatchResult of(BatchItemResult[] results) {
+        int succeeded = (int) Arrays.stream(results).filter(BatchItemResult::succeeded).count();
+        return new BatchResult(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+}
@@ -0,0 +1,28 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "CacheStatistics", description = "Counters of the in-process product cache.")
+public class CacheStatistics {
+
+    @Schema(description = "Lookups answered from the cache.", example = "1520")
+    public long hitCount;
+
+    @Schema(description = "Lookups that had to go to the database.", example = "87")
+    public long missCount;
+
+    @Schema(description = "Entries removed to stay within the size bound or because they expired.", example = "3")
+    public long evictionCount;
+
+    @Schema(description = "Ratio of hits to all lookups.", example = "0.946")
+    public double hitRate;
+
+    @Schema(description = "Approximate number of cached products.", example = "412")
+    public long size;
+}
@@ -0,0 +1,22 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "CatalogSnapshotInfo", description = "A catalog snapshot that was written to disk.")
+public class CatalogSnapshotInfo {
+
+    @Schema(description = "File the snapshot was written to.", example = "/deployments/data/catalog.snapshot")
+    public String path;
+
+    @Schema(description = "Number of products in the snapshot.", example = "25000")
+    public int products;
+
+    @Schema(description = "Size of the file in bytes.", example = "2310456")
+    public long bytes;
+}
@@ -0,0 +1,31 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "CatalogStats", description = "Catalog-wide totals, maintained as products are written.")
+public class CatalogStats {
+
+    @Schema(description = "Number of products in the catalog.", example = "25000")
+    public long products;
+
+    @Schema(description = "Sum of the quantities in stock.", example = "812340")
+    public long totalUnits;
+
+    @Schema(description = "Sum of price times quantity over all products.", example = "10483920.55")
+    public BigDecimal inventoryValue;
+
+    @Schema(description = "Products with a quantity of zero.", example = "37")
+    public long outOfStock;
+
+    @Schema(description = "When the totals were last rebuilt from the database, or null if they have not been yet.")
+    public Instant reconciledAt;
+}
@@ -0,0 +1,19 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "ImportError", description = "A record of a catalog import that failed.")
+public class ImportError {
+
+    @Schema(description = "Line of the body the record starts on, counting from 1.", example = "42")
+    public long line;
+
+    @Schema(description = "Why the record failed.", example = "Price must be non-negative")
+    public String error;
+}
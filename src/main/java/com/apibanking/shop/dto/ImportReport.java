@@ -0,0 +1,30 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "ImportReport", description = "Outcome of a catalog import.")
+public class ImportReport {
+
+    @Schema(description = "Number of records read from the body.", example = "1000000")
+    public long records;
+
+    @Schema(description = "Number of products that were created.", example = "999998")
+    public long imported;
+
+    @Schema(description = "Number of records that were rejected or could not be written.", example = "2")
+    public long failed;
+
+    @Schema(description = "The first failed records, in input order.")
+    public List<ImportError> errors;
+
+    @Schema(description = "True when more records failed than are listed in errors.", example = "false")
+    public boolean errorsTruncated;
+}
@@ -0,0 +1,35 @@
+package com.apibanking.shop.dto;
+
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.QueryParam;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSortParams {
+
+    @QueryParam("minPrice")
+    @Parameter(description = "Lowest price to include")
+    public Double minPrice;
+
+    @QueryParam("maxPrice")
+    @Parameter(description = "Highest price to include")
+    public Double maxPrice;
+
+    @QueryParam("order")
+    @DefaultValue("asc")
+    @Parameter(description = "Sort direction, asc or desc")
+    public String order = "asc";
+
+    @QueryParam("limit")
+    @Parameter(description = "Maximum number of products to return (top-K)")
+    public Integer limit;
+
+    @QueryParam("cursor")
+    @Parameter(description = "Cursor returned by the previous page")
+    public String cursor;
+}
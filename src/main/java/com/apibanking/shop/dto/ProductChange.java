@@ -0,0 +1,36 @@
+package com.apibanking.shop.dto;
+
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "ProductChange", description = "A committed write to the catalog, as sent on the change stream.")
+public class ProductChange {
+
+    @Schema(description = "Position of the change in this instance's stream; increases by one per change.", example = "1042")
+    public long sequence;
+
+    @Schema(description = "What happened to the product.", example = "UPDATED")
+    public ProductChangeType type;
+
+    @Schema(description = "ID of the product that changed.", example = "42")
+    public Long productId;
+
+    @Schema(description = "The product as written, for CREATED and UPDATED.")
+    public Product product;
+
+    @Schema(description = "Quantity added (positive) or taken (negative), for STOCK.", example = "-2")
+    public Integer quantityDelta;
+
+    @Schema(description = "When the change was published.")
+    public Instant timestamp;
+}
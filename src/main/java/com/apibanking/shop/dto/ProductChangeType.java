@@ -0,0 +1,8 @@
+package com.apibanking.shop.dto;
+
+/**
+ * Kind of write a {@link ProductChange} describes.
+ */
+public enum ProductChangeType {
+    CREATED, UPDATED, DELETED, STOCK
+}
@@ -0,0 +1,41 @@
+package com.apibanking.shop.dto;
+
+import com.apibanking.shop.exception.ValidationException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Product attributes a caller can select with the {@code fields} query parameter. Each one maps
+ * to the entity attribute of the same name.
+ */
+public enum ProductField {
+    ID, NAME, DESCRIPTION, PRICE, QUANTITY;
+
+    public String attribute() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a comma-separated list such as {@code "id,name,price"}.
+     */
+    public static Set<ProductField> parse(String fields) {
+        EnumSet<ProductField> selected = EnumSet.noneOf(ProductField.class);
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                selected.add(valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unknown field: " + trimmed);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new ValidationException("fields must name at least one of id, name, description, price, quantity.");
+        }
+        return selected;
+    }
+}
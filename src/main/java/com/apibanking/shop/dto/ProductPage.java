@@ -0,0 +1,21 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "ProductPage", description = "One page of a keyset-paginated product listing.")
+public class ProductPage<T> {
+
+    @Schema(description = "The items on this page.")
+    public List<T> items;
+
+    @Schema(description = "Opaque cursor for the next page, or null when this is the last page.", example = "42")
+    public String nextCursor;
+}
@@ -0,0 +1,65 @@
+package com.apibanking.shop.dto;
+
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only subset of a product's attributes, filled from a projection query; attributes that
+ * were not requested stay null and are left out of the JSON.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "ProductView", description = "A product restricted to the requested fields.")
+public class ProductView {
+
+    public Long id;
+    public String name;
+    public String description;
+    public Double price;
+    public Integer quantity;
+
+    /**
+     * Builds a view from one projection row whose values are in {@code columns} order, keeping only
+     * the {@code requested} fields.
+     */
+    public static ProductView fromRow(Object[] row, List<ProductField> columns, Set<ProductField> requested) {
+        ProductView view = new ProductView();
+        for (int i = 0; i < columns.size(); i++) {
+            if (requested.contains(columns.get(i))) {
+                view.set(columns.get(i), row[i]);
+            }
+        }
+        return view;
+    }
+
+    public static ProductView of(Product product, Set<ProductField> requested) {
+        ProductView view = new ProductView();
+        for (ProductField field : requested) {
+            switch (field) {
+                case ID -> view.id = product.id;
+                case NAME -> view.name = product.name;
+                case DESCRIPTION -> view.description = product.description;
+                case PRICE -> view.price = product.price;
+                case QUANTITY -> view.quantity = product.quantity;
+            }
+        }
+        return view;
+    }
+
+    private void set(ProductField field, Object value) {
+        switch (field) {
+            case ID -> id = (Long) value;
+            case NAME -> name = (String) value;
+            case DESCRIPTION -> description = (String) value;
+            case PRICE -> price = (Double) value;
+            case QUANTITY -> quantity = (Integer) value;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "StockCheckLine", description = "One line of a cart whose stock should be checked.")
+public class StockCheckLine {
+
+    @Schema(description = "ID of the product.", example = "42")
+    public Long productId;
+
+    @Schema(description = "Requested quantity.", example = "2")
+    public Integer count;
+}
@@ -0,0 +1,25 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "StockCheckLineResult", description = "Stock availability of one cart line.")
+public class StockCheckLineResult {
+
+    @Schema(description = "ID of the product.", example = "42")
+    public Long productId;
+
+    @Schema(description = "Requested quantity.", example = "2")
+    public int count;
+
+    @Schema(description = "Whether the product exists.", example = "true")
+    public boolean found;
+
+    @Schema(description = "Whether enough stock is available for this product across the whole cart.", example = "true")
+    public boolean available;
+}
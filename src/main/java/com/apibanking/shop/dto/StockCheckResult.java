@@ -0,0 +1,21 @@
+package com.apibanking.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "StockCheckResult", description = "Stock availability of a whole cart.")
+public class StockCheckResult {
+
+    @Schema(description = "True when every line is available.", example = "false")
+    public boolean allAvailable;
+
+    @Schema(description = "One result per requested line, in request order.")
+    public List<StockCheckLineResult> lines;
+}
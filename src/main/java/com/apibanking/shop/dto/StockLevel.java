@@ -0,0 +1,18 @@
+package com.apibanking.shop.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Read-only projection of a product's stock, selected without loading the entity.
+ */
+@RegisterForReflection
+public class StockLevel {
+
+    public final Long id;
+    public final Integer quantity;
+
+    public StockLevel(Long id, Integer quantity) {
+        this.id = id;
+        this.quantity = quantity;
+    }
+}
@@ -1,24 +1,33 @@
 package com.apibanking.shop.entity;
 
-import io.quarkus.hibernate.reactive.panache.PanacheEntity;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.annotations.ColumnDefault;
 
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@Table(indexes = @Index(name = "idx_product_price_id", columnList = "price, id"))
 @Schema(name = "Product", description = "Represents a product in the inventory.")
-public class Product extends PanacheEntity {
+public class Product extends PanacheEntityBase {
+
+    // Assigned by ProductService from ProductIdAllocator blocks before the insert
+    @Id
+    @Schema(description = "The product ID, assigned on creation.", readOnly = true, example = "42")
+    public Long id;
 
     @NotBlank(message = "Name cannot be blank")
     @Schema(description = "The name of the product.", example = "Laptop Pro Max")
@@ -37,4 +46,17 @@ public class Product extends PanacheEntity {
     @Min(value = 0, message = "Quantity must be non-negative")
     @Schema(description = "The available quantity in stock.", example = "45")
     public Integer quantity;
+
+    // Rows created before the column existed start at 0
+    @Version
+    @ColumnDefault("0")
+    @Schema(description = "Optimistic lock version, also carried in the product ETag.", readOnly = true, example = "3")
+    public Long version;
+
+    public Product(String name, String description, Double price, Integer quantity) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.quantity = quantity;
+    }
 }
@@ -0,0 +1,196 @@
+package com.apibanking.shop.events;
+
+import com.apibanking.shop.dto.ProductChange;
+import com.apibanking.shop.dto.ProductChangeType;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.ChangeHistoryExpiredException;
+import com.apibanking.shop.exception.ValidationException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fans committed product writes out to the subscribers of the change stream.
+ * <p>
+ * Every change gets the next sequence number and is kept in a ring buffer of the last
+ * {@code product.changes.history-size} changes, so a subscriber that reconnects with the ID of the
+ * last event it saw gets the missed changes replayed before the live ones. Event IDs carry a
+ * per-process epoch; an ID from another process or one that fell out of the ring cannot be
+ * resumed and the subscriber has to reload the catalog.
+ * <p>
+ * Each subscriber pulls changes one at a time, at the pace it consumes them. Changes it has not
+ * pulled yet wait in a queue of at most {@code product.changes.subscriber-buffer} entries. A
+ * subscriber that falls further behind gets what is queued, followed by a
+ * {@link BackPressureFailure}, and can then resume from its last event.
+ */
+@ApplicationScoped
+public class ProductChangeBroadcaster {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final ProductChange[] history;
+    private final int bufferSize;
+
+    // Sequence assignment, the ring and the subscriber list change together so every subscriber sees the same order
+    private final Object lock = new Object();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private long lastSequence;
+
+    @Inject
+    public ProductChangeBroadcaster(@ConfigProperty(name = "product.changes.history-size", defaultValue = "10000") int historySize,
+                                    @ConfigProperty(name = "product.changes.subscriber-buffer", defaultValue = "1000") int bufferSize) {
+        this.history = new ProductChange[historySize];
+        this.bufferSize = bufferSize;
+    }
+
+    public void publish(ProductChangeType type, Long productId, Product product, Integer quantityDelta) {
+        List<Delivery> deliveries = null;
+        synchronized (lock) {
+            ProductChange change = new ProductChange(++lastSequence, type, productId, product, quantityDelta, Instant.now());
+            history[(int) (change.sequence % history.length)] = change;
+            for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+                Subscriber subscriber = it.next();
+                UniEmitter<? super ProductChange> waiting = subscriber.offer(change);
+                if (waiting != null) {
+                    if (deliveries == null) {
+                        deliveries = new ArrayList<>();
+                    }
+                    deliveries.add(new Delivery(waiting, change));
+                } else if (subscriber.overflowed()) {
+                    it.remove();
+                }
+            }
+        }
+        // Handing a change to a waiting subscriber runs its downstream, so it happens outside the lock
+        if (deliveries != null) {
+            deliveries.forEach(delivery -> delivery.emitter().complete(delivery.change()));
+        }
+    }
+
+    /**
+     * Returns the changes published from now on, preceded by the retained changes after
+     * {@code lastEventId} when one is given. The subscription is registered before this returns,
+     * so nothing published in between is lost.
+     */
+    public Multi<ProductChange> changes(String lastEventId) {
+        Subscriber subscriber = subscribe(lastEventId);
+        return Multi.createBy().repeating()
+                .uni(() -> Uni.createFrom().<ProductChange>emitter(subscriber::next))
+                .indefinitely()
+                .onTermination().invoke(() -> unsubscribe(subscriber));
+    }
+
+    public String eventId(ProductChange change) {
+        return epoch + ":" + change.sequence;
+    }
+
+    public int subscriberCount() {
+        synchronized (lock) {
+            return subscribers.size();
+        }
+    }
+
+    private Subscriber subscribe(String lastEventId) {
+        Long after = parseEventId(lastEventId);
+        synchronized (lock) {
+            List<ProductChange> replay = new ArrayList<>();
+            if (after != null) {
+                long oldest = Math.max(1, lastSequence - history.length + 1);
+                if (after > lastSequence || after < oldest - 1) {
+                    throw new ChangeHistoryExpiredException("Changes after event " + lastEventId + " are no longer available; reload the catalog.");
+                }
+                for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+                    replay.add(history[(int) (sequence % history.length)]);
+                }
+            }
+            Subscriber subscriber = new Subscriber(bufferSize + replay.size(), replay);
+            subscribers.add(subscriber);
+            return subscriber;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        synchronized (lock) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private Long parseEventId(String eventId) {
+        if (eventId == null || eventId.isBlank()) {
+            return null;
+        }
+        int separator = eventId.indexOf(':');
+        if (separator < 0) {
+            throw new ValidationException("Invalid event ID: " + eventId);
+        }
+        if (!eventId.substring(0, separator).equals(epoch)) {
+            throw new ChangeHistoryExpiredException("Event " + eventId + " was issued before a restart; reload the catalog.");
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid event ID: " + eventId);
+        }
+    }
+
+    private record Delivery(UniEmitter<? super ProductChange> emitter, ProductChange change) {
+    }
+
+    private static final class Subscriber {
+
+        private final int capacity;
+        private final ArrayDeque<ProductChange> pending;
+        private UniEmitter<? super ProductChange> waiting;
+        private boolean overflowed;
+
+        Subscriber(int capacity, List<ProductChange> replay) {
+            this.capacity = capacity;
+            this.pending = new ArrayDeque<>(replay);
+        }
+
+        // Returns the emitter to complete with the change if the subscriber was waiting for one
+        synchronized UniEmitter<? super ProductChange> offer(ProductChange change) {
+            if (waiting != null) {
+                UniEmitter<? super ProductChange> emitter = waiting;
+                waiting = null;
+                return emitter;
+            }
+            if (pending.size() >= capacity) {
+                overflowed = true;
+            } else {
+                pending.add(change);
+            }
+            return null;
+        }
+
+        synchronized boolean overflowed() {
+            return overflowed;
+        }
+
+        void next(UniEmitter<? super ProductChange> emitter) {
+            ProductChange change;
+            synchronized (this) {
+                change = pending.poll();
+                if (change == null && !overflowed) {
+                    waiting = emitter;
+                    return;
+                }
+            }
+            if (change != null) {
+                emitter.complete(change);
+            } else {
+                emitter.fail(new BackPressureFailure("Change stream subscriber fell more than " + capacity + " changes behind."));
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.apibanking.shop.exception;
+
+public class ChangeHistoryExpiredException extends DomainException {
+    public ChangeHistoryExpiredException(String message) {
+        super(ProblemType.CHANGE_HISTORY_EXPIRED, message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.apibanking.shop.exception;
+
+/**
+ * Base of the exceptions that reject a request rather than report a fault in the service.
+ * <p>
+ * They are raised on hot paths, such as a lookup of a missing product, and only ever end up as an
+ * error response, so they are created without a stack trace: filling one in would cost more than
+ * the lookup that failed.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    private final ProblemType problem;
+
+    protected DomainException(ProblemType problem, String message) {
+        super(message, null, false, false);
+        this.problem = problem;
+    }
+
+    public ProblemType problem() {
+        return problem;
+    }
+}
@@ -1,4 +1,26 @@
 package com.apibanking.shop.exception;
 
+import com.apibanking.shop.metrics.ProductMetrics;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+/**
+ * Turns every {@link DomainException}, whether thrown or failed through a {@code Uni}, into an
+ * {@code application/problem+json} response and counts it by problem type.
+ */
 public class GlobalExceptionHandler {
+
+    @Inject
+    ProductMetrics metrics;
+
+    @ServerExceptionMapper
+    public Response handle(DomainException exception) {
+        ProblemType problem = exception.problem();
+        metrics.countError(problem);
+        return Response.status(problem.status())
+                .type(ProblemType.MEDIA_TYPE)
+                .entity(problem.body(exception.getMessage()))
+                .build();
+    }
 }
@@ -0,0 +1,7 @@
+package com.apibanking.shop.exception;
+
+public class PayloadTooLargeException extends DomainException {
+    public PayloadTooLargeException(String message) {
+        super(ProblemType.PAYLOAD_TOO_LARGE, message);
+    }
+}
@@ -0,0 +1,101 @@
+package com.apibanking.shop.exception;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The kinds of rejected request and their RFC 9457 problem details.
+ * <p>
+ * Everything in a problem body but the detail is fixed per kind, so it is encoded once: rendering
+ * an error copies the prebuilt bytes around the encoded detail, which also fills the {@code error}
+ * member earlier clients read.
+ */
+public enum ProblemType {
+
+    VALIDATION("validation-failed", 400, "Bad Request"),
+    PRODUCT_NOT_FOUND("product-not-found", 404, "Not Found"),
+    CHANGE_HISTORY_EXPIRED("change-history-expired", 410, "Gone"),
+    PRODUCT_MODIFIED("product-modified", 412, "Precondition Failed"),
+    PAYLOAD_TOO_LARGE("payload-too-large", 413, "Content Too Large"),
+    OVERLOADED("overloaded", 503, "Service Unavailable");
+
+    public static final String MEDIA_TYPE = "application/problem+json";
+
+    private static final byte[] ERROR = bytes("\",\"error\":\"");
+    private static final byte[] END = bytes("\"}");
+
+    private final String slug;
+    private final int status;
+    private final byte[] head;
+
+    ProblemType(String slug, int status, String title) {
+        this.slug = slug;
+        this.status = status;
+        this.head = bytes("{\"type\":\"urn:problem-type:shop:" + slug + "\",\"title\":\"" + title
+                + "\",\"status\":" + status + ",\"detail\":\"");
+    }
+
+    /**
+     * Short name of the kind, used as the metric tag.
+     */
+    public String slug() {
+        return slug;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public byte[] body(String detail) {
+        byte[] escaped = bytes(escape(detail == null ? "" : detail));
+        byte[] body = new byte[head.length + 2 * escaped.length + ERROR.length + END.length];
+        int at = append(body, 0, head);
+        at = append(body, at, escaped);
+        at = append(body, at, ERROR);
+        at = append(body, at, escaped);
+        append(body, at, END);
+        return body;
+    }
+
+    private static int append(byte[] target, int at, byte[] source) {
+        System.arraycopy(source, 0, target, at, source.length);
+        return at + source.length;
+    }
+
+    // Details are mostly plain ASCII sentences, which are returned as they are
+    static String escape(String value) {
+        int i = 0;
+        while (i < value.length() && !needsEscape(value.charAt(i))) {
+            i++;
+        }
+        if (i == value.length()) {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '"' || c == '\\' || c < 0x20;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
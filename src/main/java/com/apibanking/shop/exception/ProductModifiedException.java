@@ -0,0 +1,7 @@
+package com.apibanking.shop.exception;
+
+public class ProductModifiedException extends DomainException {
+    public ProductModifiedException(String message) {
+        super(ProblemType.PRODUCT_MODIFIED, message);
+    }
+}
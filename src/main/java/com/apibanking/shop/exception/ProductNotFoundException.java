@@ -1,7 +1,7 @@
 package com.apibanking.shop.exception;
 
-public class ProductNotFoundException extends RuntimeException {
-    public ProductNotFoundException(String message) {
-        super(message);
+public class ProductNotFoundException extends DomainException {
+    public ProductNotFoundException(Long id) {
+        super(ProblemType.PRODUCT_NOT_FOUND, "Product with ID " + id + " not found.");
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package com.apibanking.shop.exception;
 
-public class ValidationException extends RuntimeException {
+public class ValidationException extends DomainException {
     public ValidationException(String message) {
-        super(message);
+        super(ProblemType.VALIDATION, message);
     }
-}
\ No newline at end of file
+}
@@ -1,17 +0,0 @@
-package com.apibanking.shop.exception;
-
-import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.ext.ExceptionMapper;
-import jakarta.ws.rs.ext.Provider;
-
-@Provider
-public class ValidationExceptionMapper implements ExceptionMapper<ValidationException> {
-
-    @Override
-    public Response toResponse(ValidationException exception) {
-        return Response.status(Response.Status.BAD_REQUEST)
-                .entity("{\"error\":\"" + exception.getMessage() + "\"}")
-                .type("application/json")
-                .build();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.apibanking.shop.metrics;
+
+import com.apibanking.shop.cache.ProductCache;
+import com.apibanking.shop.events.ProductChangeBroadcaster;
+import com.apibanking.shop.search.ProductSearchIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.sqlclient.Pool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Registers gauges and counters over state owned by other beans: the product cache, the search
+ * index, the change stream subscribers and the number of open connections of the reactive MySQL pool. Connections in use and
+ * waiting requests come from the Vert.x pool metrics ({@code quarkus.datasource.metrics.enabled}).
+ */
+@ApplicationScoped
+public class ProductMeterBinder {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ProductCache productCache;
+
+    @Inject
+    ProductSearchIndex searchIndex;
+
+    @Inject
+    ProductChangeBroadcaster changeBroadcaster;
+
+    @Inject
+    Pool pool;
+
+    void onStart(@Observes StartupEvent event) {
+        FunctionCounter.builder("product.cache.requests", productCache, cache -> cache.statistics().hitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("product.cache.requests", productCache, cache -> cache.statistics().missCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("product.cache.evictions", productCache, cache -> cache.statistics().evictionCount)
+                .register(registry);
+        Gauge.builder("product.cache.size", productCache, cache -> cache.statistics().size)
+                .register(registry);
+        Gauge.builder("product.search.documents", searchIndex, ProductSearchIndex::size)
+                .register(registry);
+        Gauge.builder("product.changes.subscribers", changeBroadcaster, ProductChangeBroadcaster::subscriberCount)
+                .register(registry);
+        // Idle connections are this minus the in-use count reported by the pool metrics
+        Gauge.builder("product.db.pool.size", pool, Pool::size)
+                .description("Connections currently opened by the reactive MySQL pool")
+                .register(registry);
+    }
+}
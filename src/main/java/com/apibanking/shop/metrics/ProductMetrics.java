@@ -0,0 +1,73 @@
+package com.apibanking.shop.metrics;
+
+import com.apibanking.shop.exception.ProblemType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Application-level meters that the HTTP server binder cannot see, such as the time spent inside
+ * each database transaction.
+ */
+@ApplicationScoped
+public class ProductMetrics {
+
+    static final String TRANSACTION_TIMER = "product.transaction";
+    static final String READ_COUNTER = "product.reads";
+    static final String ERROR_COUNTER = "product.errors";
+
+    private final MeterRegistry registry;
+    // Registered up front so counting an error response is a map index, not a registry lookup
+    private final Map<ProblemType, Counter> errorCounters = new EnumMap<>(ProblemType.class);
+
+    @Inject
+    public ProductMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (ProblemType problem : ProblemType.values()) {
+            errorCounters.put(problem, Counter.builder(ERROR_COUNTER)
+                    .description("Requests rejected with a problem response")
+                    .tag("type", problem.slug())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Times {@code work} from subscription until it completes, fails or is cancelled, tagged with
+     * the operation name and outcome.
+     */
+    public <T> Uni<T> timeTransaction(String operation, Supplier<Uni<T>> work) {
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return work.get()
+                    .onTermination().invoke((item, failure, cancelled) ->
+                            sample.stop(transactionTimer(operation, failure == null && !cancelled ? "success" : "failure")));
+        });
+    }
+
+    /**
+     * Counts a routed read by where it was served: {@code replica}, {@code primary}, or
+     * {@code fallback} when the replica failed and the primary answered.
+     */
+    public void countRead(String target) {
+        registry.counter(READ_COUNTER, "target", target).increment();
+    }
+
+    public void countError(ProblemType problem) {
+        errorCounters.get(problem).increment();
+    }
+
+    private Timer transactionTimer(String operation, String outcome) {
+        return Timer.builder(TRANSACTION_TIMER)
+                .description("Time spent in a database transaction")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.apibanking.shop.repository;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import io.vertx.mysqlclient.MySQLClient;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+/**
+ * Hands out product IDs from blocks reserved in the {@code product_id_block} table.
+ * <p>
+ * A block is reserved with one statement, {@code UPDATE ... SET next_id = LAST_INSERT_ID(next_id + n)},
+ * whose OK packet already carries the new high value, so there is no second round trip and no
+ * lock held beyond that single-row update. Every instance reserves disjoint blocks, whatever its
+ * {@code product.id.block-size}. IDs of a block are then taken with an atomic increment; when it
+ * runs out, one caller reserves the next block and the others wait for it.
+ * <p>
+ * IDs are not reused: a block left over at shutdown or an insert that rolls back leaves a gap.
+ */
+@ApplicationScoped
+public class ProductIdAllocator {
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS product_id_block (name VARCHAR(64) NOT NULL PRIMARY KEY, next_id BIGINT NOT NULL)";
+    // Starts after the highest existing ID, so rows created by the earlier sequence generator are never reissued
+    private static final String SEED =
+            "INSERT IGNORE INTO product_id_block (name, next_id) SELECT 'product', COALESCE(MAX(id), 0) FROM Product";
+    private static final String RESERVE =
+            "UPDATE product_id_block SET next_id = LAST_INSERT_ID(next_id + ?) WHERE name = 'product'";
+
+    @Inject
+    Pool pool;
+
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(1, 0));
+    private final AtomicReference<Uni<Void>> refill = new AtomicReference<>();
+    private volatile boolean tableReady;
+
+    @Inject
+    public ProductIdAllocator(@ConfigProperty(name = "product.id.block-size", defaultValue = "100") int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public Uni<Long> nextId() {
+        long id = current.get().take();
+        if (id > 0) {
+            return Uni.createFrom().item(id);
+        }
+        return refill().chain(this::nextId);
+    }
+
+    /**
+     * Returns {@code count} IDs. More than a block's worth is reserved as one block of its own.
+     */
+    public Uni<List<Long>> nextIds(int count) {
+        if (count > blockSize) {
+            return reserveBlock(count)
+                    .map(last -> LongStream.rangeClosed(last - count + 1, last).boxed().toList());
+        }
+        return Multi.createFrom().range(0, count)
+                .onItem().transformToUniAndConcatenate(ignored -> nextId())
+                .collect().asList();
+    }
+
+    private Uni<Void> refill() {
+        while (true) {
+            Uni<Void> inFlight = refill.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            if (current.get().hasRemaining()) {
+                // Another caller refilled in the meantime
+                return Uni.createFrom().voidItem();
+            }
+            Uni<Void> started = Uni.createFrom().deferred(() -> reserveBlock(blockSize))
+                    .invoke(last -> current.set(new Block(last - blockSize + 1, last)))
+                    .onTermination().invoke(() -> refill.set(null))
+                    .replaceWithVoid()
+                    .memoize().indefinitely();
+            if (refill.compareAndSet(null, started)) {
+                return started;
+            }
+        }
+    }
+
+    /**
+     * Reserves {@code count} IDs and returns the highest; the block is the {@code count} IDs ending there.
+     */
+    protected Uni<Long> reserveBlock(long count) {
+        return ensureTable()
+                .chain(() -> pool.preparedQuery(RESERVE).execute(Tuple.of(count)))
+                .chain(rows -> rows.rowCount() > 0
+                        ? Uni.createFrom().item(rows.property(MySQLClient.LAST_INSERTED_ID))
+                        : pool.query(SEED).execute().chain(() -> reserveBlock(count)));
+    }
+
+    private Uni<Void> ensureTable() {
+        if (tableReady) {
+            return Uni.createFrom().voidItem();
+        }
+        return pool.query(CREATE_TABLE).execute()
+                .invoke(() -> tableReady = true)
+                .replaceWithVoid();
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        long take() {
+            long id = next.getAndIncrement();
+            return id <= last ? id : 0;
+        }
+
+        boolean hasRemaining() {
+            return next.get() <= last;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.apibanking.shop.repository;
+
+import com.apibanking.shop.dto.ProductField;
+import com.apibanking.shop.dto.StockLevel;
+import com.apibanking.shop.entity.Product;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.reactive.datasource.ReactiveDataSource;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only product queries against the {@code replica} reactive datasource.
+ * <p>
+ * Hibernate Reactive only serves the default datasource, so these go through the SQL client
+ * and map rows by hand. Filters arrive in the same form the service passes to Panache (attribute
+ * names equal column names, named parameters) and are rewritten to positional SQL here.
+ */
+@ApplicationScoped
+public class ProductReplicaReader {
+
+    private static final String COLUMNS = "SELECT id, name, description, price, quantity, version FROM Product";
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    // Resolved lazily so the replica pool is only created when replica reads are enabled
+    @Inject
+    @ReactiveDataSource("replica")
+    Instance<Pool> replica;
+
+    public Uni<Product> findById(Long id) {
+        return pool().preparedQuery(COLUMNS + " WHERE id = ?")
+                .execute(Tuple.of(id))
+                .map(rows -> rows.size() == 0 ? null : toProduct(rows.iterator().next()));
+    }
+
+    public Uni<List<Product>> findByIds(List<Long> ids) {
+        return pool().preparedQuery(COLUMNS + " WHERE id IN (" + placeholders(ids.size()) + ")")
+                .execute(Tuple.from(new ArrayList<Object>(ids)))
+                .map(ProductReplicaReader::toProducts);
+    }
+
+    public Uni<List<Product>> listAll() {
+        return pool().query(COLUMNS + " ORDER BY id")
+                .execute()
+                .map(ProductReplicaReader::toProducts);
+    }
+
+    /**
+     * Equivalent of {@code Product.find(where, sort, parameters).range(0, limit - 1).list()}.
+     */
+    public Uni<List<Product>> list(String where, Map<String, Object> parameters, Sort sort, int limit) {
+        List<Object> values = new ArrayList<>();
+        return pool().preparedQuery(COLUMNS + clauses(where, parameters, sort, limit, values))
+                .execute(Tuple.from(values))
+                .map(ProductReplicaReader::toProducts);
+    }
+
+    /**
+     * Like {@link #list}, but selects only {@code columns} and returns each row's values in their
+     * order, as the service's projection queries do. A {@code limit} of zero means no limit.
+     */
+    public Uni<List<Object[]>> listColumns(List<ProductField> columns, String where, Map<String, Object> parameters, Sort sort, int limit) {
+        List<Object> values = new ArrayList<>();
+        String select = columns.stream()
+                .map(ProductField::attribute)
+                .collect(Collectors.joining(", ", "SELECT ", " FROM Product"));
+        return pool().preparedQuery(select + clauses(where, parameters, sort, limit, values))
+                .execute(Tuple.from(values))
+                .map(rows -> {
+                    List<Object[]> result = new ArrayList<>(rows.size());
+                    rows.forEach(row -> {
+                        Object[] columnValues = new Object[columns.size()];
+                        for (int i = 0; i < columnValues.length; i++) {
+                            columnValues[i] = value(row, i, columns.get(i));
+                        }
+                        result.add(columnValues);
+                    });
+                    return result;
+                });
+    }
+
+    // WHERE, ORDER BY and LIMIT, with the named parameters of the filter turned into positional ones
+    private static String clauses(String where, Map<String, Object> parameters, Sort sort, int limit, List<Object> values) {
+        StringBuilder sql = new StringBuilder();
+        if (!where.isBlank()) {
+            Matcher matcher = NAMED_PARAMETER.matcher(where);
+            StringBuilder positional = new StringBuilder();
+            while (matcher.find()) {
+                values.add(parameters.get(matcher.group(1)));
+                matcher.appendReplacement(positional, "?");
+            }
+            matcher.appendTail(positional);
+            sql.append(" WHERE ").append(positional);
+        }
+        sql.append(sort.getColumns().stream()
+                .map(column -> column.getName() + (column.getDirection() == Sort.Direction.Descending ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", ", " ORDER BY ", "")));
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            values.add(limit);
+        }
+        return sql.toString();
+    }
+
+    public Uni<List<StockLevel>> listStockLevels(List<Long> ids) {
+        return pool().preparedQuery("SELECT id, quantity FROM Product WHERE id IN (" + placeholders(ids.size()) + ")")
+                .execute(Tuple.from(new ArrayList<Object>(ids)))
+                .map(rows -> {
+                    List<StockLevel> levels = new ArrayList<>(rows.size());
+                    rows.forEach(row -> levels.add(new StockLevel(row.getLong("id"), row.getInteger("quantity"))));
+                    return levels;
+                });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private Pool pool() {
+        return replica.get();
+    }
+
+    private static List<Product> toProducts(RowSet<Row> rows) {
+        List<Product> products = new ArrayList<>(rows.size());
+        rows.forEach(row -> products.add(toProduct(row)));
+        return products;
+    }
+
+    private static Object value(Row row, int position, ProductField field) {
+        return switch (field) {
+            case ID -> row.getLong(position);
+            case NAME, DESCRIPTION -> row.getString(position);
+            case PRICE -> row.getDouble(position);
+            case QUANTITY -> row.getInteger(position);
+        };
+    }
+
+    private static Product toProduct(Row row) {
+        Product product = new Product(row.getString("name"), row.getString("description"),
+                row.getDouble("price"), row.getInteger("quantity"));
+        product.id = row.getLong("id");
+        product.version = row.getLong("version");
+        return product;
+    }
+}
@@ -0,0 +1,88 @@
+package com.apibanking.shop.rest;
+
+import com.apibanking.shop.admission.Admission;
+import com.apibanking.shop.admission.AdmissionControl;
+import com.apibanking.shop.exception.ProblemType;
+import com.apibanking.shop.metrics.ProductMetrics;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies {@link AdmissionControl} to the resource methods marked with {@link Admission}.
+ * <p>
+ * A request over the limit is answered at once with a 503, a {@code Retry-After} header and an
+ * {@code overloaded} problem body, before anything is read from the database. An admitted
+ * request holds its slot until its response has been written, or until the connection closes.
+ * Each endpoint is limited separately and named by its HTTP method and path template, such as
+ * {@code GET /products/{id}}, because overloads of one Java method serve different endpoints.
+ */
+public class AdmissionFilter {
+
+    // The same for every rejection, so it is encoded once
+    private static final byte[] OVERLOADED = ProblemType.OVERLOADED.body("Too many requests in progress; retry later.");
+
+    @Inject
+    AdmissionControl admission;
+
+    @Inject
+    ProductMetrics metrics;
+
+    private final Map<Method, String> endpoints = new ConcurrentHashMap<>();
+
+    @ServerRequestFilter
+    public Response admit(ResourceInfo resource, RoutingContext routing) {
+        if (!admission.enabled()) {
+            return null;
+        }
+        Admission marked = resource.getResourceMethod().getAnnotation(Admission.class);
+        if (marked == null) {
+            return null;
+        }
+        String endpoint = endpoints.computeIfAbsent(resource.getResourceMethod(),
+                method -> endpoint(resource.getResourceClass(), method));
+        AdmissionControl.Permit permit = admission.tryAcquire(endpoint, marked.value());
+        if (permit == null) {
+            metrics.countError(ProblemType.OVERLOADED);
+            return Response.status(ProblemType.OVERLOADED.status())
+                    .type(ProblemType.MEDIA_TYPE)
+                    .header(HttpHeaders.RETRY_AFTER, admission.retryAfterSeconds())
+                    .entity(OVERLOADED)
+                    .build();
+        }
+        routing.addEndHandler(ended -> permit.release(ended.succeeded()));
+        return null;
+    }
+
+    static String endpoint(Class<?> resource, Method method) {
+        String verb = "";
+        for (Annotation annotation : method.getAnnotations()) {
+            HttpMethod http = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (http != null) {
+                verb = http.value() + " ";
+            }
+        }
+        return verb + path(resource.getAnnotation(Path.class)) + path(method.getAnnotation(Path.class));
+    }
+
+    private static String path(Path path) {
+        if (path == null) {
+            return "";
+        }
+        String value = path.value();
+        if (value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value.isEmpty() || value.startsWith("/") ? value : "/" + value;
+    }
+}
@@ -0,0 +1,141 @@
+package com.apibanking.shop.rest;
+
+import com.apibanking.shop.dto.ImportReport;
+import com.apibanking.shop.exception.DomainException;
+import com.apibanking.shop.exception.PayloadTooLargeException;
+import com.apibanking.shop.exception.ProblemType;
+import com.apibanking.shop.metrics.ProductMetrics;
+import com.apibanking.shop.service.CatalogFormat;
+import com.apibanking.shop.service.CatalogTransfer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.vertx.http.runtime.RouteConstants;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Serves {@code POST /products/import} from a Vert.x route of its own, so the body streams into
+ * {@link CatalogTransfer} under {@code product.import.max-body-size}.
+ * <p>
+ * Quarkus checks {@code quarkus.http.limits.max-body-size} for every request before any resource
+ * runs, and the JSON endpoints read their whole body into memory, so that limit stays small. This
+ * route is ordered ahead of the check. The body is read on a worker thread through a
+ * {@link RequestBodyStream}, which pauses the request while the import is behind.
+ */
+@ApplicationScoped
+public class CatalogImportRoute {
+
+    static final String PATH = "/products/import";
+
+    // Buffers of the body held at most before the request is paused; Vert.x delivers up to 8 KB each
+    private static final int MAX_QUEUED = 16;
+
+    @Inject
+    CatalogTransfer catalogTransfer;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    ProductMetrics metrics;
+
+    @ConfigProperty(name = "product.import.max-body-size", defaultValue = "512M")
+    MemorySize maxBodySize;
+
+    void register(@Observes Router router) {
+        router.post(PATH)
+                .order(RouteConstants.ROUTE_ORDER_UPLOAD_LIMIT - 1)
+                .handler(this::importCatalog);
+    }
+
+    private void importCatalog(RoutingContext routing) {
+        HttpServerRequest request = routing.request();
+        CatalogFormat format;
+        try {
+            format = CatalogFormat.of(mediaType(request.getHeader(HttpHeaders.CONTENT_TYPE)));
+            checkLength(request.getHeader(HttpHeaders.CONTENT_LENGTH), maxBodySize.asLongValue());
+        } catch (DomainException e) {
+            problem(routing, e);
+            return;
+        }
+        Context context = routing.vertx().getOrCreateContext();
+        RequestBodyStream body = new RequestBodyStream(maxBodySize.asLongValue(), MAX_QUEUED,
+                request::pause, () -> context.runOnContext(ignored -> request.resume()));
+        request.handler(buffer -> body.offer(buffer.getBytes()));
+        request.endHandler(ignored -> body.end());
+        request.exceptionHandler(failure -> body.fail(new IllegalStateException("The request body could not be read", failure)));
+        routing.vertx().<ImportReport>executeBlocking(() -> catalogTransfer.importCatalog(body, format), false)
+                .onComplete(result -> respond(routing, result));
+    }
+
+    private void respond(RoutingContext routing, AsyncResult<ImportReport> result) {
+        if (result.failed()) {
+            if (result.cause() instanceof DomainException rejected) {
+                problem(routing, rejected);
+            } else {
+                routing.fail(result.cause());
+            }
+            return;
+        }
+        try {
+            closeIfUnread(routing).putHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                    .end(Buffer.buffer(mapper.writeValueAsBytes(result.result())));
+        } catch (JsonProcessingException e) {
+            routing.fail(e);
+        }
+    }
+
+    private void problem(RoutingContext routing, DomainException exception) {
+        ProblemType problem = exception.problem();
+        metrics.countError(problem);
+        closeIfUnread(routing)
+                .setStatusCode(problem.status())
+                .putHeader(HttpHeaders.CONTENT_TYPE, ProblemType.MEDIA_TYPE)
+                .end(Buffer.buffer(problem.body(exception.getMessage())));
+    }
+
+    private static HttpServerResponse closeIfUnread(RoutingContext routing) {
+        HttpServerResponse response = routing.response();
+        if (!routing.request().isEnded()) {
+            // The rest of the body was not read, so the connection cannot carry another request
+            response.putHeader(HttpHeaders.CONNECTION, HttpHeaders.CLOSE);
+        }
+        return response;
+    }
+
+    static MediaType mediaType(String contentType) {
+        try {
+            return contentType == null ? null : MediaType.valueOf(contentType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // A declared length over the limit is turned away before a byte of the body is read
+    static void checkLength(String contentLength, long limit) {
+        if (contentLength == null) {
+            return;
+        }
+        long length;
+        try {
+            length = Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (length > limit) {
+            throw new PayloadTooLargeException("Import bodies must not be larger than " + limit + " bytes.");
+        }
+    }
+}
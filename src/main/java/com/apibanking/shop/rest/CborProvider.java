@@ -0,0 +1,66 @@
+package com.apibanking.shop.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes {@code application/cbor} bodies with the application's Jackson configuration.
+ * <p>
+ * CBOR carries the same structure as the JSON representation, so every DTO works unchanged, but
+ * numbers are written in binary and no text has to be escaped or parsed, which makes it smaller
+ * and cheaper to produce. It is meant for service-to-service callers that send
+ * {@code Accept: application/cbor}.
+ */
+@Provider
+@Produces(CborProvider.APPLICATION_CBOR)
+@Consumes(CborProvider.APPLICATION_CBOR)
+public class CborProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
+
+    private final ObjectMapper mapper;
+
+    @Inject
+    public CborProvider(ObjectMapper json) {
+        // Keeps the modules and inclusion rules the JSON mapper was configured with
+        this.mapper = json.copyWith(new CBORFactory());
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return APPLICATION_CBOR_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        return mapper.readValue(entityStream, mapper.getTypeFactory().constructType(genericType));
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return APPLICATION_CBOR_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        // Entities returned through a Response only have their runtime class, which is what gets serialized
+        mapper.writeValue(entityStream, value);
+    }
+}
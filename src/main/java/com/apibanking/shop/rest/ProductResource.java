@@ -1,12 +1,37 @@
 package com.apibanking.shop.rest;
 
+import com.apibanking.shop.admission.Admission;
+import com.apibanking.shop.admission.Priority;
+import com.apibanking.shop.dto.BatchResult;
+import com.apibanking.shop.dto.CacheStatistics;
+import com.apibanking.shop.dto.CatalogSnapshotInfo;
+import com.apibanking.shop.dto.CatalogStats;
+import com.apibanking.shop.dto.PriceSortParams;
+import com.apibanking.shop.dto.ProductChange;
+import com.apibanking.shop.dto.ProductField;
+import com.apibanking.shop.dto.ProductPage;
+import com.apibanking.shop.dto.ProductView;
+import com.apibanking.shop.dto.StockCheckLine;
+import com.apibanking.shop.dto.StockCheckResult;
+import com.apibanking.shop.dto.StockLevel;
 import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.ProductNotFoundException;
+import com.apibanking.shop.service.CatalogFormat;
+import com.apibanking.shop.service.CatalogSnapshots;
+import com.apibanking.shop.service.CatalogTransfer;
 import com.apibanking.shop.service.ProductService;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -14,19 +39,34 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestMediaType;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Path("/products")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
 @Tag(name = "Product Resource", description = "Operations related to products in the store.")
 public class ProductResource {
 
+    private static final String FIELDS_DESCRIPTION =
+            "Comma-separated subset of id, name, description, price, quantity; only these columns are selected";
+
     @Inject
     ProductService productService;
 
+    @Inject
+    CatalogSnapshots catalogSnapshots;
+
+    @Inject
+    CatalogTransfer catalogTransfer;
+
     @POST
+    @Admission(Priority.STANDARD)
     @Operation(summary = "Create a new product", description = "Adds a new product to the database.")
     @APIResponse(responseCode = "201", description = "Product created successfully.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON,
@@ -34,52 +74,208 @@ public class ProductResource {
     @APIResponse(responseCode = "400", description = "Invalid product data provided.")
     public Uni<Response> create(Product product) {
         return productService.create(product)
-                .map(saved -> Response.status(Response.Status.CREATED).entity(saved).build());
+                .map(saved -> Response.status(Response.Status.CREATED).entity(saved).tag(productService.productTag(saved)).build());
     }
 
     @GET
+    @Admission(Priority.BULK)
     @Operation(summary = "Get all products", description = "Retrieves a list of all products in the store.")
     @APIResponse(responseCode = "200", description = "List of all products.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON,
                     schema = @Schema(type = SchemaType.ARRAY, implementation = Product.class)))
-    public Uni<List<Product>> getAll() {
-        return productService.getAll();
+    @APIResponse(responseCode = "304", description = "The catalog has not changed since the given ETag.")
+    public Uni<Response> getAll(@Parameter(description = FIELDS_DESCRIPTION) @QueryParam("fields") String fields,
+                                @Context Request request) {
+        if (fields == null) {
+            return conditional(request, productService.catalogTag(), productService::getAll);
+        }
+        Set<ProductField> selected = ProductField.parse(fields);
+        return conditional(request, productService.catalogTag(), () -> productService.getAll(selected));
+    }
+
+    @GET
+    @Path("/page")
+    @Admission(Priority.STANDARD)
+    @Operation(summary = "Get a page of products", description = "Retrieves products in ID order using keyset pagination.")
+    @APIResponse(responseCode = "200", description = "One page of products and the cursor for the next page.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = ProductPage.class)))
+    @APIResponse(responseCode = "400", description = "Invalid cursor or page size.")
+    @APIResponse(responseCode = "304", description = "The catalog has not changed since the given ETag.")
+    public Uni<Response> getPage(@Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+                                 @Parameter(description = "Number of products per page") @QueryParam("size") Integer size,
+                                 @Context Request request) {
+        return conditional(request, productService.catalogTag(), () -> productService.getPage(cursor, size));
+    }
+
+    @GET
+    @Path("/search")
+    @Admission(Priority.STANDARD)
+    @Operation(summary = "Search products", description = "Full-text search over product names and descriptions, with prefix matching and ranking.")
+    @APIResponse(responseCode = "200", description = "One page of matching products, best match first.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = ProductPage.class)))
+    @APIResponse(responseCode = "400", description = "Blank query or invalid paging parameters.")
+    public Uni<ProductPage<Product>> search(@Parameter(description = "Search terms; each term also matches as a prefix") @QueryParam("q") String query,
+                                            @Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+                                            @Parameter(description = "Number of products per page") @QueryParam("size") Integer size) {
+        return productService.search(query, cursor, size);
+    }
+
+    @GET
+    @Path("/stream")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Stream all products", description = "Streams every product as newline-delimited JSON, in ID order.")
+    @APIResponse(responseCode = "200", description = "Stream of products, one JSON document per line.")
+    public Multi<Product> stream() {
+        return productService.streamAll();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @Operation(summary = "Export the catalog as NDJSON",
+            description = "Streams every product from the database as newline-delimited JSON, in ID order, in the format the import reads.")
+    @APIResponse(responseCode = "200", description = "The catalog, one JSON document per line.")
+    public Multi<byte[]> exportNdjson() {
+        return catalogTransfer.export(CatalogFormat.NDJSON);
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(CatalogFormat.TEXT_CSV)
+    @Operation(summary = "Export the catalog as CSV",
+            description = "Streams every product from the database as CSV with a header row, in ID order.")
+    @APIResponse(responseCode = "200", description = "The catalog, one row per product.")
+    public Multi<byte[]> exportCsv() {
+        return catalogTransfer.export(CatalogFormat.CSV);
+    }
+
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Subscribe to product changes",
+            description = "Server-sent events for every committed create, update, delete and stock change. "
+                    + "Subscribe first, then load the catalog once; applying the events keeps the copy current without polling.")
+    @APIResponse(responseCode = "200", description = "Event stream; each event is named after the change type and carries a ProductChange.",
+            content = @Content(mediaType = MediaType.SERVER_SENT_EVENTS,
+                    schema = @Schema(implementation = ProductChange.class)))
+    @APIResponse(responseCode = "400", description = "Malformed event ID.")
+    @APIResponse(responseCode = "410", description = "The changes after the given event ID are no longer retained; reload the catalog.")
+    public Multi<OutboundSseEvent> changes(@Parameter(description = "ID of the last event received, to resume after it")
+                                           @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventIdHeader,
+                                           @Parameter(description = "Same as the Last-Event-ID header, for clients that cannot set it")
+                                           @QueryParam("lastEventId") String lastEventId,
+                                           @Context Sse sse) {
+        String resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        return productService.changes(resumeFrom)
+                .map(change -> sse.newEventBuilder()
+                        .id(productService.changeEventId(change))
+                        .name(change.type.name().toLowerCase(Locale.ROOT))
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(ProductChange.class, change)
+                        .build());
     }
 
     @GET
     @Path("/{id}")
+    @Admission(Priority.CRITICAL)
     @Operation(summary = "Get product by ID", description = "Retrieves a specific product using its ID.")
     @APIResponse(responseCode = "200", description = "The product with the given ID.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON,
                     schema = @Schema(implementation = Product.class)))
+    @APIResponse(responseCode = "304", description = "The product has not changed since the given ETag.")
     @APIResponse(responseCode = "404", description = "Product not found.")
-    public Uni<Response> getById(@PathParam("id") Long id) {
-        return productService.getById(id)
-                .map(product -> product != null ? Response.ok(product) : Response.status(Response.Status.NOT_FOUND))
-                .map(Response.ResponseBuilder::build);
+    public Uni<Response> getById(@PathParam("id") Long id,
+                                 @Parameter(description = FIELDS_DESCRIPTION) @QueryParam("fields") String fields,
+                                 @Context Request request) {
+        Set<ProductField> selected = fields == null ? null : ProductField.parse(fields);
+        // The tag carries the row version, so the product is loaded first; usually from the cache
+        return productService.getById(id).map(product -> {
+            EntityTag tag = productService.productTag(product);
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            Object entity = selected == null ? product : ProductView.of(product, selected);
+            return Response.ok(entity).tag(tag).build();
+        });
     }
 
     @PUT
     @Path("/{id}")
-    @Operation(summary = "Update a product", description = "Updates an existing product's details.")
-    @APIResponse(responseCode = "200", description = "Product updated successfully.")
+    @Admission(Priority.STANDARD)
+    @Operation(summary = "Update a product",
+            description = "Replaces an existing product's details in one statement. With If-Match, only if the product still has that ETag.")
+    @APIResponse(responseCode = "200", description = "Product updated successfully; the new ETag is returned.")
     @APIResponse(responseCode = "404", description = "Product not found.")
-    public Uni<Product> update(@Parameter(description = "ID of the product to update") @PathParam("id") Long id, Product product) {
-        return productService.update(id, product);
+    @APIResponse(responseCode = "412", description = "The product has changed since the ETag given in If-Match.")
+    public Uni<Response> update(@Parameter(description = "ID of the product to update") @PathParam("id") Long id,
+                                @Parameter(description = "ETag of the product as last read, or *") @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                Product product) {
+        return productService.update(id, product, productService.expectedVersion(id, ifMatch))
+                .map(saved -> Response.ok(saved).tag(productService.productTag(saved)).build());
     }
 
     @DELETE
     @Path("/{id}")
-    @Operation(summary = "Delete a product", description = "Deletes a product by its ID.")
+    @Admission(Priority.STANDARD)
+    @Operation(summary = "Delete a product",
+            description = "Deletes a product by its ID in one statement. With If-Match, only if the product still has that ETag.")
     @APIResponse(responseCode = "200", description = "Product deleted successfully.")
     @APIResponse(responseCode = "404", description = "Product not found.")
-    public Uni<Response> delete(@Parameter(description = "ID of the product to delete") @PathParam("id") Long id) {
-        return productService.delete(id)
-                .map(deleted -> deleted ? Response.ok().build() : Response.status(Response.Status.NOT_FOUND).build());
+    @APIResponse(responseCode = "412", description = "The product has changed since the ETag given in If-Match.")
+    public Uni<Response> delete(@Parameter(description = "ID of the product to delete") @PathParam("id") Long id,
+                                @Parameter(description = "ETag of the product as last read, or *") @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        return productService.delete(id, productService.expectedVersion(id, ifMatch))
+                .flatMap(deleted -> deleted
+                        ? Uni.createFrom().item(Response.ok().build())
+                        : Uni.createFrom().<Response>failure(new ProductNotFoundException(id)));
+    }
+
+    @POST
+    @Path("/batch")
+    @Admission(Priority.BULK)
+    @Operation(summary = "Create products in bulk", description = "Validates and creates a list of products in chunked transactions.")
+    @APIResponse(responseCode = "200", description = "Per-item results of the batch.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = BatchResult.class)))
+    @APIResponse(responseCode = "400", description = "Empty batch.")
+    @APIResponse(responseCode = "413", description = "More items than product.batch.max-items.")
+    public Uni<BatchResult> createBatch(List<Product> products) {
+        return productService.createBatch(products);
+    }
+
+    @PUT
+    @Path("/batch")
+    @Admission(Priority.BULK)
+    @Operation(summary = "Update products in bulk", description = "Validates and updates a list of products, identified by their IDs, in chunked transactions.")
+    @APIResponse(responseCode = "200", description = "Per-item results of the batch.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = BatchResult.class)))
+    @APIResponse(responseCode = "400", description = "Empty batch.")
+    @APIResponse(responseCode = "413", description = "More items than product.batch.max-items.")
+    public Uni<BatchResult> updateBatch(List<Product> products) {
+        return productService.updateBatch(products);
+    }
+
+    @DELETE
+    @Path("/batch")
+    @Admission(Priority.BULK)
+    @Operation(summary = "Delete products in bulk", description = "Deletes a list of products by ID in chunked transactions.")
+    @APIResponse(responseCode = "200", description = "Per-item results of the batch.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = BatchResult.class)))
+    @APIResponse(responseCode = "400", description = "Empty batch.")
+    @APIResponse(responseCode = "413", description = "More items than product.batch.max-items.")
+    public Uni<BatchResult> deleteBatch(List<Long> ids) {
+        return productService.deleteBatch(ids);
     }
 
     @GET
     @Path("/check-stock/{id}/{count}")
+    @Admission(Priority.CRITICAL)
     @Operation(summary = "Check product stock", description = "Checks if the requested quantity is available for a product.")
     @APIResponse(responseCode = "200", description = "Stock availability status.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Boolean.class)))
@@ -90,13 +286,127 @@ public class ProductResource {
                 .map(available -> Response.ok(available).build());
     }
 
+    @POST
+    @Path("/check-stock")
+    @Admission(Priority.CRITICAL)
+    @Operation(summary = "Check stock for a cart", description = "Checks the requested quantity of several products with a single lookup.")
+    @APIResponse(responseCode = "200", description = "Availability per line and for the whole cart.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = StockCheckResult.class)))
+    @APIResponse(responseCode = "400", description = "Empty cart or invalid line.")
+    public Uni<StockCheckResult> checkStock(List<StockCheckLine> lines) {
+        return productService.checkStock(lines);
+    }
+
+    @POST
+    @Path("/{id}/reserve")
+    @Admission(Priority.CRITICAL)
+    @Operation(summary = "Reserve product stock", description = "Atomically takes the given quantity out of stock if enough is available.")
+    @APIResponse(responseCode = "200", description = "Stock reserved.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Boolean.class)))
+    @APIResponse(responseCode = "400", description = "Invalid quantity.")
+    @APIResponse(responseCode = "404", description = "Product not found.")
+    @APIResponse(responseCode = "409", description = "Not enough stock available.")
+    public Uni<Response> reserve(@Parameter(description = "ID of the product to reserve") @PathParam("id") Long id,
+                                 @Parameter(description = "Quantity to reserve") @QueryParam("count") @DefaultValue("1") int count) {
+        return productService.reserveStock(id, count)
+                .map(reserved -> reserved
+                        ? Response.ok(true).build()
+                        : Response.status(Response.Status.CONFLICT).entity(false).build());
+    }
+
+    @POST
+    @Path("/{id}/release")
+    @Admission(Priority.CRITICAL)
+    @Operation(summary = "Release product stock", description = "Atomically puts the given quantity back into stock.")
+    @APIResponse(responseCode = "200", description = "Stock released.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Boolean.class)))
+    @APIResponse(responseCode = "400", description = "Invalid quantity.")
+    @APIResponse(responseCode = "404", description = "Product not found.")
+    public Uni<Response> release(@Parameter(description = "ID of the product to release") @PathParam("id") Long id,
+                                 @Parameter(description = "Quantity to release") @QueryParam("count") @DefaultValue("1") int count) {
+        return productService.releaseStock(id, count)
+                .map(released -> Response.ok(released).build());
+    }
+
     @GET
     @Path("/sorted-by-price")
-    @Operation(summary = "Get products sorted by price", description = "Retrieves all products sorted in ascending order by price.")
-    @APIResponse(responseCode = "200", description = "List of products sorted by price.",
+    @Admission(Priority.BULK)
+    @Operation(summary = "Get products sorted by price",
+            description = "Retrieves one page of products ordered by price, optionally within a price range.")
+    @APIResponse(responseCode = "200", description = "One page of products sorted by price and the cursor for the next page.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON,
-                    schema = @Schema(type = SchemaType.ARRAY, implementation = Product.class)))
-    public Uni<List<Product>> sortByPrice() {
-        return productService.sortByPrice();
+                    schema = @Schema(implementation = ProductPage.class)))
+    @APIResponse(responseCode = "400", description = "Invalid range, order, limit or cursor.")
+    @APIResponse(responseCode = "304", description = "The catalog has not changed since the given ETag.")
+    public Uni<Response> sortByPrice(@BeanParam PriceSortParams params,
+                                     @Parameter(description = FIELDS_DESCRIPTION) @QueryParam("fields") String fields,
+                                     @Context Request request) {
+        if (fields == null) {
+            return conditional(request, productService.catalogTag(), () -> productService.sortByPrice(params));
+        }
+        Set<ProductField> selected = ProductField.parse(fields);
+        return conditional(request, productService.catalogTag(), () -> productService.sortByPrice(params, selected));
+    }
+
+    @GET
+    @Path("/cache/stats")
+    @Operation(summary = "Get product cache statistics", description = "Returns hit, miss and eviction counters of the product cache.")
+    @APIResponse(responseCode = "200", description = "Current cache counters.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = CacheStatistics.class)))
+    public CacheStatistics cacheStatistics() {
+        return productService.cacheStatistics();
+    }
+
+    @GET
+    @Path("/stats")
+    @Operation(summary = "Get catalog statistics",
+            description = "Returns the product count, units in stock, inventory value and out-of-stock count, maintained in memory as products are written.")
+    @APIResponse(responseCode = "200", description = "Current catalog totals.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = CatalogStats.class)))
+    public CatalogStats catalogStats() {
+        return productService.catalogStats();
+    }
+
+    @GET
+    @Path("/low-stock")
+    @Operation(summary = "Get low-stock products",
+            description = "Lists the products with a quantity at or below the threshold, lowest stock first, from an in-memory index.")
+    @APIResponse(responseCode = "200", description = "One page of stock levels and the cursor for the next page.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = ProductPage.class)))
+    @APIResponse(responseCode = "400", description = "Negative threshold, invalid cursor or page size.")
+    public Uni<ProductPage<StockLevel>> lowStock(@Parameter(description = "Highest quantity to include; defaults to product.stats.low-stock-threshold")
+                                                 @QueryParam("threshold") Integer threshold,
+                                                 @Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+                                                 @Parameter(description = "Number of products per page") @QueryParam("size") Integer size) {
+        return productService.lowStock(threshold, cursor, size);
+    }
+
+    @POST
+    @Path("/snapshot")
+    @Admission(Priority.BULK)
+    @Operation(summary = "Write a catalog snapshot",
+            description = "Writes the whole catalog to the snapshot file that new instances load at startup.")
+    @APIResponse(responseCode = "200", description = "Snapshot written.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = CatalogSnapshotInfo.class)))
+    public Uni<CatalogSnapshotInfo> writeSnapshot() {
+        return catalogSnapshots.write();
+    }
+
+    // The tag is taken before loading, so a 304 costs neither a query nor serialization.
+    // A body read from the replica goes out untagged: the replica can be behind the version the tag names.
+    private <T> Uni<Response> conditional(Request request, EntityTag tag, Supplier<Uni<T>> load) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return Uni.createFrom().item(notModified.build());
+        }
+        boolean tagged = !productService.catalogReadFromReplica();
+        return load.get().map(entity -> tagged
+                ? Response.ok(entity).tag(tag).build()
+                : Response.ok(entity).build());
     }
-}
\ No newline at end of file
+}
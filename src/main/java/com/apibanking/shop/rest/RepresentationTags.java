@@ -0,0 +1,104 @@
+package com.apibanking.shop.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every representation of a resource its own {@code ETag}.
+ * <p>
+ * The resources tag a product or the catalog by version only, but the same version is sent as
+ * JSON or CBOR, gzipped or not. A cache that stored one of them must not be told by a 304 that it
+ * may serve it for a request that negotiated another, so the tag sent out names the format and
+ * encoding as well, such as {@code "1-3-cbor-gzip"}. The suffix depends only on what the request
+ * negotiated, so a 304 carries the same tag as the full response would. Preconditions sent back
+ * by clients are stripped to the version before the resources compare them, so {@code If-Match}
+ * works with the tag of any representation.
+ */
+@Provider
+@PreMatching
+public class RepresentationTags implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String CBOR = "-cbor";
+    private static final String GZIP = "-gzip";
+    private static final Pattern SUFFIX = Pattern.compile("(?:" + CBOR + ")?(?:" + GZIP + ")?\"");
+
+    private final boolean compression;
+
+    @Inject
+    public RepresentationTags(@ConfigProperty(name = "product.compression.enabled", defaultValue = "true") boolean compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        strip(request, HttpHeaders.IF_NONE_MATCH);
+        strip(request, HttpHeaders.IF_MATCH);
+    }
+
+    private static void strip(ContainerRequestContext request, String header) {
+        List<String> values = request.getHeaders().get(header);
+        if (values != null) {
+            values.replaceAll(RepresentationTags::versionTags);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        EntityTag tag = response.getEntityTag();
+        if (tag == null) {
+            return;
+        }
+        MediaType type = response.getMediaType();
+        if (!response.hasEntity()) {
+            // A 304 names the same variant as the full response, which ResponseCompression marks with Vary
+            type = negotiated(request.getAcceptableMediaTypes());
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            if (compression) {
+                response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+        }
+        boolean gzip = compression
+                && ResponseCompression.compressible(type)
+                && ResponseCompression.acceptsGzip(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        response.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + suffix(type, gzip), tag.isWeak()));
+    }
+
+    /**
+     * Removes the representation suffixes from the tags of an {@code If-Match} or
+     * {@code If-None-Match} header.
+     */
+    static String versionTags(String header) {
+        return header == null ? null : SUFFIX.matcher(header).replaceAll("\"");
+    }
+
+    static String suffix(MediaType type, boolean gzip) {
+        String format = type != null && CborProvider.APPLICATION_CBOR_TYPE.isCompatible(type) ? CBOR : "";
+        return gzip ? format + GZIP : format;
+    }
+
+    // A 304 has no body to read the format from, so it is negotiated the way the resources do:
+    // JSON is listed first in @Produces and wins a wildcard
+    static MediaType negotiated(List<MediaType> acceptable) {
+        for (MediaType type : acceptable) {
+            if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return MediaType.APPLICATION_JSON_TYPE;
+            }
+            if (type.isCompatible(CborProvider.APPLICATION_CBOR_TYPE)) {
+                return CborProvider.APPLICATION_CBOR_TYPE;
+            }
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+}
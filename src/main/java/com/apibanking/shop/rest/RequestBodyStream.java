@@ -0,0 +1,117 @@
+package com.apibanking.shop.rest;
+
+import com.apibanking.shop.exception.PayloadTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A request body arriving on the event loop, read as a blocking {@link InputStream} on a worker
+ * thread.
+ * <p>
+ * The event loop offers each buffer as it arrives. Once {@code maxQueued} buffers wait to be
+ * read, the request is paused, and it is resumed when the reader has caught up to half of that,
+ * so memory use does not depend on the size of the body. A body longer than {@code limit} bytes
+ * fails the reader with {@link PayloadTooLargeException}; the rest of it is not read.
+ */
+final class RequestBodyStream extends InputStream {
+
+    private final long limit;
+    private final int maxQueued;
+    private final Runnable pause;
+    private final Runnable resume;
+
+    private final Queue<byte[]> queued = new ArrayDeque<>();
+    private long received;
+    private boolean paused;
+    private boolean ended;
+    private RuntimeException failure;
+    private byte[] current;
+    private int position;
+
+    RequestBodyStream(long limit, int maxQueued, Runnable pause, Runnable resume) {
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+        this.pause = pause;
+        this.resume = resume;
+    }
+
+    synchronized void offer(byte[] bytes) {
+        if (failure != null) {
+            return;
+        }
+        received += bytes.length;
+        if (received > limit) {
+            fail(new PayloadTooLargeException("Import bodies must not be larger than " + limit + " bytes."));
+            return;
+        }
+        queued.add(bytes);
+        if (queued.size() >= maxQueued) {
+            pausing();
+        }
+        notifyAll();
+    }
+
+    synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+
+    synchronized void fail(RuntimeException cause) {
+        if (failure == null) {
+            failure = cause;
+            // Nothing more will be read, so there is no point in receiving it
+            pausing();
+        }
+        notifyAll();
+    }
+
+    private void pausing() {
+        if (!paused) {
+            paused = true;
+            pause.run();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (current == null || position == current.length) {
+            if (failure != null) {
+                throw failure;
+            }
+            current = queued.poll();
+            position = 0;
+            if (current != null) {
+                if (paused && queued.size() <= maxQueued / 2) {
+                    paused = false;
+                    resume.run();
+                }
+            } else if (ended) {
+                return -1;
+            } else {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the request body");
+                }
+            }
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, target, offset, count);
+        position += count;
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+package com.apibanking.shop.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips JSON and CBOR responses of at least {@code product.compression.min-size} bytes for
+ * clients that accept it.
+ * <p>
+ * The size of a body is only known once it has been serialized, so a response that qualifies is
+ * written to a buffer first and then sent either compressed or as it is. Small bodies, such as
+ * a single product or an error, are not worth the CPU and go out unchanged. Streamed responses
+ * (NDJSON, server-sent events) are never buffered.
+ */
+@Provider
+public class ResponseCompression implements ContainerResponseFilter, WriterInterceptor {
+
+    private static final String GZIP = "gzip";
+    private static final String ACCEPTS_GZIP = ResponseCompression.class.getName() + ".gzip";
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+
+    @Inject
+    public ResponseCompression(@ConfigProperty(name = "product.compression.enabled", defaultValue = "true") boolean enabled,
+                               @ConfigProperty(name = "product.compression.min-size", defaultValue = "1024") int minSize,
+                               @ConfigProperty(name = "product.compression.level", defaultValue = "6") int level) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!response.hasEntity() || !compressible(response.getMediaType())) {
+            return;
+        }
+        // The same URL is sent as JSON or CBOR, and compressed or not, so caches must key on both headers
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (!enabled) {
+            return;
+        }
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            request.setProperty(ACCEPTS_GZIP, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (context.getProperty(ACCEPTS_GZIP) == null) {
+            context.proceed();
+            return;
+        }
+        OutputStream out = context.getOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize * 2);
+        context.setOutputStream(buffer);
+        context.proceed();
+        if (buffer.size() < minSize) {
+            buffer.writeTo(out);
+            return;
+        }
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+        context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        gzip(buffer, out, level);
+    }
+
+    static void gzip(ByteArrayOutputStream body, OutputStream out, int level) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(level);
+            }
+        };
+        body.writeTo(gzip);
+        gzip.finish();
+    }
+
+    static boolean compressible(MediaType type) {
+        return type != null
+                && (MediaType.APPLICATION_JSON_TYPE.isCompatible(type) || CborProvider.APPLICATION_CBOR_TYPE.isCompatible(type));
+    }
+
+    /**
+     * Reads an {@code Accept-Encoding} header; gzip is accepted when it is listed, or else covered
+     * by {@code *}, without a zero quality.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            int parameters = coding.indexOf(';');
+            String name = (parameters < 0 ? coding : coding.substring(0, parameters)).trim();
+            boolean accepted = parameters < 0 || !isZeroQuality(coding.substring(parameters + 1));
+            if (name.equalsIgnoreCase(GZIP)) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String value = parameters.trim().toLowerCase(Locale.ROOT);
+        if (!value.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(value.substring(2).trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.apibanking.shop.search;
+
+import com.apibanking.shop.entity.Product;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product names and descriptions.
+ * <p>
+ * Terms live in a sorted map so a query token matches every term it is a prefix of with one
+ * range lookup. A product must match every query token; it scores the weight of each matching
+ * term, doubled for an exact match, and name terms weigh more than description terms. The index
+ * keeps its own copy of each product so results are served without touching the database.
+ */
+@ApplicationScoped
+public class ProductSearchIndex {
+
+    static final int NAME_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private Set<Long> writtenDuringReconcile;
+
+    private record Document(Product product, Set<String> terms) {
+    }
+
+    private record Hit(Product product, int score) {
+    }
+
+    public void put(Product product) {
+        put(product, false);
+    }
+
+    /**
+     * Puts a product read by a background pass over the catalog. Rows read there can be older
+     * than a write that lands meanwhile, so the product is skipped if the index already holds the
+     * same or a newer version, or if this instance wrote it since {@link #beginReconcile()}.
+     */
+    public void putIfNewer(Product product) {
+        put(product, true);
+    }
+
+    private void put(Product product, boolean ifNewer) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(product.name).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(product.description).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        Product copy = copyOf(product);
+
+        lock.writeLock().lock();
+        try {
+            if (ifNewer && !isNewer(product)) {
+                return;
+            }
+            written(product.id);
+            removeUnlocked(product.id);
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.id, weight));
+            documents.put(product.id, new Document(copy, weights.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isNewer(Product product) {
+        if (writtenDuringReconcile != null && writtenDuringReconcile.contains(product.id)) {
+            return false;
+        }
+        Document document = documents.get(product.id);
+        return document == null || versionOf(document.product()) < versionOf(product);
+    }
+
+    private static long versionOf(Product product) {
+        return product.version == null ? -1 : product.version;
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            written(id);
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts remembering the products this instance writes, so that {@link #putIfNewer} leaves
+     * them alone until {@link #endReconcile()}.
+     */
+    public void beginReconcile() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringReconcile = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endReconcile() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringReconcile = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void written(Long id) {
+        if (writtenDuringReconcile != null) {
+            writtenDuringReconcile.add(id);
+        }
+    }
+
+    // Stock changes made by conditional UPDATEs only know the delta, not the new row
+    public void adjustQuantity(Long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            written(id);
+            Document document = documents.get(id);
+            if (document != null && document.product().quantity != null) {
+                Product copy = copyOf(document.product());
+                copy.quantity = Math.max(0, copy.quantity + delta);
+                // Stock updates bump the row version as well
+                copy.version = copy.version == null ? null : copy.version + 1;
+                documents.put(id, new Document(copy, document.terms()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit + 1} matches starting at {@code offset}, best first; the extra
+     * match tells the caller whether another page exists.
+     */
+    public List<Product> search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Integer> matched = tokenScores;
+                    scores.keySet().retainAll(matched.keySet());
+                    scores.replaceAll((id, score) -> score + matched.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            scores.forEach((id, score) -> hits.add(new Hit(documents.get(id).product(), score)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingInt(Hit::score).reversed().thenComparing(hit -> hit.product().id));
+        if (offset >= hits.size()) {
+            return List.of();
+        }
+        return hits.subList(offset, Math.min(hits.size(), offset + limit + 1)).stream()
+                .map(Hit::product)
+                .toList();
+    }
+
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        postings.subMap(token, true, token + Character.MAX_VALUE, false).forEach((term, matches) -> {
+            int boost = term.equals(token) ? 2 : 1;
+            matches.forEach((id, weight) -> scores.merge(id, weight * boost, Integer::sum));
+        });
+        return scores;
+    }
+
+    private void removeUnlocked(Long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            Map<Long, Integer> matches = postings.get(term);
+            matches.remove(id);
+            if (matches.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new HashSet<>();
+        List<String> ordered = new ArrayList<>();
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && tokens.add(token)) {
+                ordered.add(token);
+            }
+        }
+        return ordered;
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.name, product.description, product.price, product.quantity);
+        copy.id = product.id;
+        copy.version = product.version;
+        return copy;
+    }
+}
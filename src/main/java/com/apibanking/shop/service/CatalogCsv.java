@@ -0,0 +1,210 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The CSV form of the catalog: RFC 4180 with a header row, as spreadsheets write it.
+ */
+final class CatalogCsv {
+
+    static final String HEADER = "id,name,description,price,quantity";
+
+    private static final List<String> REQUIRED = List.of("name", "description", "price", "quantity");
+    private static final char BOM = '\uFEFF';
+
+    private CatalogCsv() {
+    }
+
+    /**
+     * Encodes products as CSV rows, separated but not terminated by line breaks.
+     */
+    static byte[] encode(List<Product> products) {
+        StringBuilder out = new StringBuilder(products.size() * 96);
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                out.append('\n');
+            }
+            Product product = products.get(i);
+            appendValue(out, product.id).append(',');
+            appendText(out, product.name).append(',');
+            appendText(out, product.description).append(',');
+            // Plain notation, so a price of ten million is not written as 1.0E7
+            appendValue(out, product.price == null ? null : BigDecimal.valueOf(product.price).toPlainString()).append(',');
+            appendValue(out, product.quantity);
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StringBuilder appendValue(StringBuilder out, Object value) {
+        return value == null ? out : out.append(value);
+    }
+
+    private static StringBuilder appendText(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Reads products from CSV one record at a time. Columns are matched by their header names, in
+     * any order and case; unknown columns, such as {@code id}, are ignored.
+     */
+    static final class RecordReader implements CatalogTransfer.Source {
+
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long line = 1;
+
+        RecordReader(Reader in) throws IOException {
+            this.in = in;
+            List<String> header = readRecord();
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(i == 0 && !name.isEmpty() && name.charAt(0) == BOM ? name.substring(1) : name, i);
+            }
+            List<String> missing = REQUIRED.stream().filter(name -> !columns.containsKey(name)).toList();
+            if (!missing.isEmpty()) {
+                throw new ValidationException("CSV header is missing the columns " + String.join(", ", missing) + ".");
+            }
+        }
+
+        @Override
+        public CatalogTransfer.Parsed next() throws IOException {
+            while (true) {
+                long start = line;
+                List<String> record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue;
+                }
+                return parse(start, record);
+            }
+        }
+
+        private CatalogTransfer.Parsed parse(long start, List<String> record) {
+            Product product = new Product();
+            product.name = field(record, "name");
+            product.description = field(record, "description");
+            try {
+                product.price = number(record, "price", Double::valueOf);
+                product.quantity = number(record, "quantity", Integer::valueOf);
+            } catch (InvalidNumber e) {
+                return new CatalogTransfer.Parsed(start, null, e.getMessage());
+            }
+            return new CatalogTransfer.Parsed(start, product, null);
+        }
+
+        private String field(List<String> record, String column) {
+            int index = columns.get(column);
+            return index < record.size() ? record.get(index) : null;
+        }
+
+        private <T> T number(List<String> record, String column, Function<String, T> parse) {
+            String value = field(record, column);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return parse.apply(value.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidNumber("Invalid " + column + ": " + value);
+            }
+        }
+
+        // Returns the fields of the next record, or null at the end of the input
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        // Unterminated quote: keep what was read
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                } else if (c < 0 || c == '\n') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+
+    private static final class InvalidNumber extends RuntimeException {
+
+        InvalidNumber(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.exception.ValidationException;
+import jakarta.ws.rs.core.MediaType;
+import org.jboss.resteasy.reactive.RestMediaType;
+
+/**
+ * Line-oriented formats the whole catalog is imported and exported in.
+ */
+public enum CatalogFormat {
+
+    /**
+     * One product JSON document per line, as returned by {@code GET /products/stream}.
+     */
+    NDJSON,
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns.
+     */
+    CSV;
+
+    public static final String TEXT_CSV = "text/csv";
+
+    private static final MediaType TEXT_CSV_TYPE = new MediaType("text", "csv");
+    private static final MediaType NDJSON_TYPE = new MediaType("application", "x-ndjson");
+
+    public static CatalogFormat of(MediaType type) {
+        if (type != null && TEXT_CSV_TYPE.isCompatible(type)) {
+            return CSV;
+        }
+        if (type != null && NDJSON_TYPE.isCompatible(type)) {
+            return NDJSON;
+        }
+        throw new ValidationException("Catalog imports must be " + RestMediaType.APPLICATION_NDJSON + " or " + TEXT_CSV + ".");
+    }
+}
@@ -0,0 +1,94 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.cache.CatalogSnapshot;
+import com.apibanking.shop.dto.CatalogSnapshotInfo;
+import com.apibanking.shop.entity.Product;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads and writes the catalog snapshot at {@code product.snapshot.path}.
+ */
+@ApplicationScoped
+public class CatalogSnapshots {
+
+    @Inject
+    ProductService productService;
+
+    @ConfigProperty(name = "product.snapshot.path", defaultValue = "data/catalog.snapshot")
+    Path path;
+
+    /**
+     * Streams the catalog from the database and writes it as a new snapshot, one chunk at a time,
+     * so only a single chunk is held in memory. The file is written on a worker thread, never on
+     * the event loop.
+     */
+    public Uni<CatalogSnapshotInfo> write() {
+        return Uni.createFrom().deferred(() -> {
+            // The database session lives on the request's Vert.x context, so every file write hops back to it
+            Executor context = currentContext();
+            return onWorker(() -> CatalogSnapshot.open(path), context)
+                    .flatMap(writer -> productService.streamChunks()
+                            .onItem().transformToUniAndConcatenate(chunk -> onWorker(() -> {
+                                writer.append(chunk);
+                                return chunk.size();
+                            }, context))
+                            .collect().last()
+                            .flatMap(ignored -> onWorker(writer::commit, context))
+                            .map(bytes -> new CatalogSnapshotInfo(path.toAbsolutePath().toString(), writer.count(), bytes))
+                            .onFailure().call(() -> onWorker(() -> {
+                                writer.close();
+                                return null;
+                            }, context)));
+        });
+    }
+
+    private <T> Uni<T> onWorker(SnapshotIo<T> io, Executor context) {
+        return Uni.createFrom().item(() -> {
+                    try {
+                        return io.run();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not write the catalog snapshot to " + path, e);
+                    }
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .emitOn(context);
+    }
+
+    private static Executor currentContext() {
+        Context context = Vertx.currentContext();
+        return context == null ? Runnable::run : command -> context.runOnContext(ignored -> command.run());
+    }
+
+    private interface SnapshotIo<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * Returns the products of the snapshot, or nothing if no snapshot has been written yet.
+     */
+    public Optional<List<Product>> load() throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(CatalogSnapshot.read(path));
+    }
+
+    public Path path() {
+        return path;
+    }
+}
@@ -0,0 +1,32 @@
+package com.apibanking.shop.service;
+
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Rebuilds the catalog statistics from MySQL every {@code product.stats.reconcile-interval}, to pick
+ * up writes made by other instances and correct any drift of the incremental updates.
+ */
+@ApplicationScoped
+public class CatalogStatisticsReconciler {
+
+    private static final Logger LOG = Logger.getLogger(CatalogStatisticsReconciler.class);
+
+    @Inject
+    ProductService productService;
+
+    @Scheduled(every = "${product.stats.reconcile-interval:10m}", delayed = "${product.stats.reconcile-interval:10m}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> reconcile() {
+        long start = System.nanoTime();
+        return productService.rebuildStatistics()
+                .invoke(count -> LOG.debugf("Rebuilt the catalog statistics from %d products in %d ms",
+                        count, (System.nanoTime() - start) / 1_000_000))
+                .onFailure().invoke(failure -> LOG.warn("Rebuilding the catalog statistics failed; retrying on the next run", failure))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+}
@@ -0,0 +1,199 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.dto.ImportError;
+import com.apibanking.shop.dto.ImportReport;
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Multi;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the whole catalog in and out as NDJSON or CSV with constant memory.
+ * <p>
+ * An export walks the table in chunks and writes each chunk to the response as one block of
+ * lines. An import reads the body record by record, validates each one and creates the valid
+ * ones in transactions of {@code product.batch.chunk-size}; only one chunk is ever held in memory,
+ * and the body is not read further while a chunk is being written.
+ */
+@ApplicationScoped
+public class CatalogTransfer {
+
+    private static final Logger LOG = Logger.getLogger(CatalogTransfer.class);
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @ConfigProperty(name = "product.batch.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "product.import.max-errors", defaultValue = "100")
+    int maxErrors;
+
+    private ObjectReader productReader;
+    private ObjectWriter productWriter;
+
+    @PostConstruct
+    void init() {
+        productReader = mapper.readerFor(Product.class);
+        productWriter = mapper.writerFor(Product.class).withRootValueSeparator("\n");
+    }
+
+    /**
+     * The catalog in ID order, as blocks of lines. Quarkus REST ends every streamed item with a
+     * line break, so the lines of a block are separated but not terminated by one.
+     */
+    public Multi<byte[]> export(CatalogFormat format) {
+        if (format == CatalogFormat.CSV) {
+            return Multi.createBy().concatenating().streams(
+                    Multi.createFrom().item(CatalogCsv.HEADER.getBytes(StandardCharsets.UTF_8)),
+                    productService.streamChunks().map(CatalogCsv::encode));
+        }
+        return productService.streamChunks().map(this::encodeJson);
+    }
+
+    private byte[] encodeJson(List<Product> products) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(products.size() * 160);
+        try (SequenceWriter lines = productWriter.writeValues(out)) {
+            lines.writeAll(products);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates a product for every valid record of {@code body}. Blocks the calling thread, which
+     * must be a worker thread, until the whole body has been read.
+     * <p>
+     * Records are not rolled back when a later one fails, so an import that stops early can be
+     * resumed by sending the records from the first line that was not imported.
+     */
+    public ImportReport importCatalog(InputStream body, CatalogFormat format) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(0, 0, 0, new ArrayList<>(), false);
+        Reader text = new InputStreamReader(body, StandardCharsets.UTF_8);
+        Source source = format == CatalogFormat.CSV ? new CatalogCsv.RecordReader(text) : new JsonLines(text);
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        List<Long> lines = new ArrayList<>(chunkSize);
+        for (Parsed record = source.next(); record != null; record = source.next()) {
+            report.records++;
+            String error = record.error() != null ? record.error() : validationError(record.product());
+            if (error != null) {
+                fail(report, record.line(), error);
+                continue;
+            }
+            chunk.add(record.product());
+            lines.add(record.line());
+            if (chunk.size() == chunkSize) {
+                write(report, chunk, lines);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(report, chunk, lines);
+        }
+        LOG.infof("Imported %d of %d %s records in %d ms", report.imported, report.records, format,
+                (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private void write(ImportReport report, List<Product> chunk, List<Long> lines) {
+        try {
+            writeChunk(chunk);
+            report.imported += chunk.size();
+        } catch (Throwable failure) {
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+            lines.forEach(line -> fail(report, line, error));
+        }
+        chunk.clear();
+        lines.clear();
+    }
+
+    private void fail(ImportReport report, long line, String error) {
+        report.failed++;
+        if (report.errors.size() < maxErrors) {
+            report.errors.add(new ImportError(line, error));
+        } else {
+            report.errorsTruncated = true;
+        }
+    }
+
+    // Make this protected to allow mocking
+    protected String validationError(Product product) {
+        return productService.validationError(product, false);
+    }
+
+    // Hibernate Reactive needs a Vert.x context, which the worker thread of a blocking request does not have
+    protected void writeChunk(List<Product> products) throws Throwable {
+        VertxContextSupport.subscribeAndAwait(() -> productService.importChunk(products));
+    }
+
+    /**
+     * One record of an import: a product to validate, or why none could be read.
+     */
+    record Parsed(long line, Product product, String error) {
+    }
+
+    interface Source {
+
+        /**
+         * Returns the next record, or null at the end of the input.
+         */
+        Parsed next() throws IOException;
+    }
+
+    private final class JsonLines implements Source {
+
+        private final BufferedReader in;
+        private long line;
+
+        JsonLines(Reader in) {
+            this.in = new BufferedReader(in, 65536);
+        }
+
+        @Override
+        public Parsed next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+            try {
+                Product product = productReader.readValue(text);
+                return product == null
+                        ? new Parsed(line, null, "Product is required.")
+                        : new Parsed(line, product, null);
+            } catch (JsonProcessingException e) {
+                return new Parsed(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
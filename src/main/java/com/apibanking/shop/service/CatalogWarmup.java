@@ -0,0 +1,132 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.cache.ProductCache;
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.search.ProductSearchIndex;
+import com.apibanking.shop.stats.CatalogStatistics;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds the in-process read models from one streamed pass over the catalog at startup.
+ * <p>
+ * With {@code product.snapshot.load-on-start}, the search index, the product cache and the catalog
+ * statistics are first filled from the catalog snapshot, so the instance serves warm reads as soon
+ * as it starts. The pass over the database then runs in the background and corrects whatever
+ * changed since the snapshot was written.
+ */
+@ApplicationScoped
+public class CatalogWarmup {
+
+    private static final Logger LOG = Logger.getLogger(CatalogWarmup.class);
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    ProductSearchIndex searchIndex;
+
+    @Inject
+    ProductCache productCache;
+
+    @Inject
+    CatalogStatistics catalogStatistics;
+
+    @Inject
+    CatalogSnapshots snapshots;
+
+    @ConfigProperty(name = "product.warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "product.snapshot.load-on-start", defaultValue = "false")
+    boolean loadSnapshot;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Optional<List<Product>> snapshot = loadSnapshot ? loadSnapshot() : Optional.empty();
+        if (snapshot.isPresent()) {
+            List<Product> products = snapshot.get();
+            VertxContextSupport.subscribe(() -> reconcile(products).toMulti(), subscribe -> subscribe.with(
+                    count -> LOG.infof("Catalog reconciliation checked %d products against the snapshot", count),
+                    failure -> LOG.warn("Catalog reconciliation failed; snapshot entries are corrected as products are written", failure)));
+            return;
+        }
+        CatalogStatistics.Rebuild statistics = catalogStatistics.rebuild();
+        try {
+            // Hibernate Reactive needs a Vert.x context, which startup observers do not run on
+            Long count = VertxContextSupport.subscribeAndAwait(() -> productService.streamAll()
+                    .invoke(product -> {
+                        searchIndex.put(product);
+                        statistics.add(product);
+                    })
+                    .collect().with(Collectors.counting()));
+            statistics.finish();
+            LOG.infof("Catalog warm-up indexed %d products", count);
+        } catch (Throwable e) {
+            LOG.warn("Catalog warm-up failed; the search index and statistics fill as products are written", e);
+        }
+    }
+
+    private Optional<List<Product>> loadSnapshot() {
+        long start = System.nanoTime();
+        try {
+            Optional<List<Product>> snapshot = snapshots.load();
+            if (snapshot.isEmpty()) {
+                LOG.infof("No catalog snapshot at %s; warming up from the database", snapshots.path());
+                return snapshot;
+            }
+            for (Product product : snapshot.get()) {
+                searchIndex.put(product);
+                productCache.warm(product);
+                catalogStatistics.put(product);
+            }
+            LOG.infof("Loaded %d products from the catalog snapshot in %d ms",
+                    snapshot.get().size(), (System.nanoTime() - start) / 1_000_000);
+            return snapshot;
+        } catch (Exception e) {
+            LOG.warn("Could not load the catalog snapshot at " + snapshots.path() + "; warming up from the database", e);
+            searchIndex.clear();
+            productCache.invalidateAll();
+            catalogStatistics.clear();
+            return Optional.empty();
+        }
+    }
+
+    // Rows read here can be older than a write that lands meanwhile, so the cache and the search index only take newer versions
+    private Uni<Long> reconcile(List<Product> snapshot) {
+        Set<Long> current = new HashSet<>();
+        CatalogStatistics.Rebuild statistics = catalogStatistics.rebuild();
+        searchIndex.beginReconcile();
+        return productService.streamAll()
+                .invoke(product -> {
+                    current.add(product.id);
+                    searchIndex.putIfNewer(product);
+                    productCache.replaceIfNewer(product);
+                    statistics.add(product);
+                })
+                .collect().with(Collectors.counting())
+                .invoke(statistics::finish)
+                .invoke(() -> snapshot.stream()
+                        .map(product -> product.id)
+                        .filter(id -> !current.contains(id))
+                        .forEach(id -> {
+                            productCache.invalidate(id);
+                            searchIndex.remove(id);
+                        }))
+                .eventually(searchIndex::endReconcile);
+    }
+}
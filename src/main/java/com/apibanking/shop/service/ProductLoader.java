@@ -0,0 +1,177 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.entity.Product;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Coalesces the product lookups that miss the cache.
+ * <p>
+ * Concurrent lookups of the same ID share one load. Loads of distinct IDs started within
+ * {@code product.loader.batch-window} are resolved together with one {@code IN} query of at most
+ * {@code product.loader.max-batch} IDs; a window of zero gathers what arrives before the event
+ * loop's next turn. The query runs on the Vert.x context of the lookup that opened the batch,
+ * and every caller is resumed on its own context.
+ */
+@ApplicationScoped
+public class ProductLoader {
+
+    private final long windowMillis;
+    private final int maxBatch;
+    private final Map<Long, Uni<Product>> inFlight = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private Batch open;
+
+    @Inject
+    public ProductLoader(@ConfigProperty(name = "product.loader.batch-window", defaultValue = "0ms") Duration window,
+                         @ConfigProperty(name = "product.loader.max-batch", defaultValue = "100") int maxBatch) {
+        this.windowMillis = window.toMillis();
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Loads a product, or null if it does not exist, through {@code query}, which is given the
+     * distinct IDs of a batch and returns the rows it found.
+     */
+    public Uni<Product> load(Long id, Function<List<Long>, Uni<List<Product>>> query) {
+        Uni<Product> shared = inFlight.computeIfAbsent(id, key -> {
+            AtomicReference<Uni<Product>> self = new AtomicReference<>();
+            Uni<Product> load = Uni.createFrom().<Product>emitter(emitter -> enqueue(key, emitter, query))
+                    .onTermination().invoke(() -> inFlight.remove(key, self.get()))
+                    .memoize().indefinitely();
+            self.set(load);
+            return load;
+        });
+        return onCallerContext(shared);
+    }
+
+    /**
+     * Makes the next lookup of {@code id} start a new load instead of joining one that may have
+     * read the row before a write.
+     */
+    public void forget(Long id) {
+        inFlight.remove(id);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private void enqueue(Long id, UniEmitter<? super Product> emitter, Function<List<Long>, Uni<List<Product>>> query) {
+        Batch full = null;
+        Batch opened = null;
+        synchronized (lock) {
+            if (open == null) {
+                open = new Batch(query);
+                opened = open;
+            }
+            open.add(id, emitter);
+            if (open.ids.size() >= maxBatch) {
+                full = open;
+                open = null;
+            }
+        }
+        if (full != null) {
+            full.run();
+        } else if (opened != null) {
+            schedule(opened);
+        }
+    }
+
+    private void schedule(Batch batch) {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            // Outside Vert.x (tests, benchmarks) the window is timed on the worker pool
+            Infrastructure.getDefaultWorkerPool().schedule(() -> close(batch), windowMillis, TimeUnit.MILLISECONDS);
+        } else if (windowMillis == 0) {
+            context.runOnContext(ignored -> close(batch));
+        } else {
+            context.owner().setTimer(windowMillis, timer -> context.runOnContext(ignored -> close(batch)));
+        }
+    }
+
+    private void close(Batch batch) {
+        synchronized (lock) {
+            if (open == batch) {
+                open = null;
+            }
+        }
+        batch.run();
+    }
+
+    // Emitters complete on the thread of the batch query; hop back to the caller's event loop
+    private static <T> Uni<T> onCallerContext(Uni<T> uni) {
+        Context caller = Vertx.currentContext();
+        if (caller == null) {
+            return uni;
+        }
+        return uni.emitOn(task -> {
+            if (Vertx.currentContext() == caller) {
+                task.run();
+            } else {
+                caller.runOnContext(ignored -> task.run());
+            }
+        });
+    }
+
+    private record Waiter(Long id, UniEmitter<? super Product> emitter) {
+    }
+
+    private static final class Batch {
+
+        private final Function<List<Long>, Uni<List<Product>>> query;
+        private final Set<Long> ids = new LinkedHashSet<>();
+        private final List<Waiter> waiters = new ArrayList<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        Batch(Function<List<Long>, Uni<List<Product>>> query) {
+            this.query = query;
+        }
+
+        // Guarded by the loader's lock until the batch is closed
+        void add(Long id, UniEmitter<? super Product> emitter) {
+            ids.add(id);
+            waiters.add(new Waiter(id, emitter));
+        }
+
+        void run() {
+            // A batch that filled up can still have its window fire
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            Uni<List<Product>> rows;
+            try {
+                rows = query.apply(List.copyOf(ids));
+            } catch (RuntimeException e) {
+                rows = Uni.createFrom().failure(e);
+            }
+            rows.subscribe().with(
+                    products -> {
+                        Map<Long, Product> byId = new HashMap<>();
+                        products.forEach(product -> byId.put(product.id, product));
+                        waiters.forEach(waiter -> waiter.emitter().complete(byId.get(waiter.id())));
+                    },
+                    failure -> waiters.forEach(waiter -> waiter.emitter().fail(failure)));
+        }
+    }
+}
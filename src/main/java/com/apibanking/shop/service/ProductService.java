@@ -1,71 +1,1074 @@
 package com.apibanking.shop.service;
 
+import com.apibanking.shop.cache.ProductCache;
+import com.apibanking.shop.cache.ProductVersions;
+import com.apibanking.shop.dto.BatchItemResult;
+import com.apibanking.shop.dto.BatchResult;
+import com.apibanking.shop.dto.CacheStatistics;
+import com.apibanking.shop.dto.CatalogStats;
+import com.apibanking.shop.dto.PriceSortParams;
+import com.apibanking.shop.dto.ProductChange;
+import com.apibanking.shop.dto.ProductChangeType;
+import com.apibanking.shop.dto.ProductField;
+import com.apibanking.shop.dto.ProductPage;
+import com.apibanking.shop.dto.ProductView;
+import com.apibanking.shop.dto.StockCheckLine;
+import com.apibanking.shop.dto.StockCheckLineResult;
+import com.apibanking.shop.dto.StockCheckResult;
+import com.apibanking.shop.dto.StockLevel;
 import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.events.ProductChangeBroadcaster;
+import com.apibanking.shop.exception.PayloadTooLargeException;
+import com.apibanking.shop.exception.ProductModifiedException;
 import com.apibanking.shop.exception.ProductNotFoundException;
 import com.apibanking.shop.exception.ValidationException;
+import com.apibanking.shop.metrics.ProductMetrics;
+import com.apibanking.shop.repository.ProductIdAllocator;
+import com.apibanking.shop.repository.ProductReplicaReader;
+import com.apibanking.shop.search.ProductSearchIndex;
+import com.apibanking.shop.stats.CatalogStatistics;
+import com.apibanking.shop.stock.StockCounter;
+import com.apibanking.shop.stock.StockCounterEngine;
 import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.core.EntityTag;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.reactive.mutiny.Mutiny;
+import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class ProductService {
 
+    private static final Logger LOG = Logger.getLogger(ProductService.class);
+
+    @Inject
+    ProductCache productCache;
+
+    @Inject
+    ProductSearchIndex searchIndex;
+
+    @Inject
+    ProductVersions productVersions;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ProductMetrics metrics;
+
+    @Inject
+    ProductReplicaReader replicaReader;
+
+    @Inject
+    ReplicaRouting replicaRouting;
+
+    @Inject
+    ProductChangeBroadcaster changeBroadcaster;
+
+    @Inject
+    StockCounterEngine stockCounters;
+
+    @Inject
+    ProductIdAllocator idAllocator;
+
+    @Inject
+    ProductLoader productLoader;
+
+    @Inject
+    CatalogStatistics catalogStatistics;
+
+    @ConfigProperty(name = "product.page.default-size", defaultValue = "50")
+    int defaultPageSize;
+
+    @ConfigProperty(name = "product.page.max-size", defaultValue = "500")
+    int maxPageSize;
+
+    @ConfigProperty(name = "product.stream.chunk-size", defaultValue = "200")
+    int streamChunkSize;
+
+    @ConfigProperty(name = "product.batch.chunk-size", defaultValue = "500")
+    int batchChunkSize;
+
+    @ConfigProperty(name = "product.batch.max-items", defaultValue = "5000")
+    int maxBatchItems;
+
+    @ConfigProperty(name = "product.stats.low-stock-threshold", defaultValue = "10")
+    int lowStockThreshold;
+
+    @ConfigProperty(name = "product.stock-check.max-lines", defaultValue = "1000")
+    int maxStockCheckLines;
+
     public Uni<Product> create(Product product) {
-        // Add a simple check for invalid data
-        if (product.price < 0 || product.quantity < 0) {
-            throw new ValidationException("Product price and quantity must be non-negative.");
+        String error = product == null ? "Product is required." : validationError(product, false);
+        if (error != null) {
+            return Uni.createFrom().failure(new ValidationException(error));
         }
-        return Panache.withTransaction(product::persist);
+        // The ID comes from an in-memory block, so the insert is the only statement of the transaction
+        return idAllocator.nextId()
+                .invoke(id -> assignNewId(product, id))
+                .chain(() -> this.<Product>inTransaction("create", product::persist))
+                .invoke(saved -> productSaved(ProductChangeType.CREATED, saved));
     }
 
     public Uni<List<Product>> getAll() {
-        return Product.listAll();
+        return replicaRouting.read(null, replicaReader::listAll, Product::listAll);
+    }
+
+    public Uni<ProductPage<Product>> getPage(String cursor, Integer size) {
+        // Deferred so an invalid cursor or size fails the Uni instead of being thrown
+        return Uni.createFrom().deferred(() -> {
+            long afterId = parseIdCursor(cursor);
+            int pageSize = resolvePageSize(size);
+            // Fetch one extra row to find out whether another page exists
+            return listProductsAfter(afterId, pageSize + 1)
+                    .map(rows -> toPage(rows, pageSize, last -> String.valueOf(last.id)));
+        });
+    }
+
+    public Uni<List<ProductView>> getAll(Set<ProductField> fields) {
+        List<ProductField> columns = List.copyOf(fields);
+        return listColumns(columns, "", Map.of(), Sort.by("id"), 0)
+                .map(rows -> toViews(rows, columns, fields));
+    }
+
+    /**
+     * A projection of the rows matching {@code where}, from the replica when the read-your-writes
+     * window allows it. Each row holds the values of {@code columns} in their order.
+     */
+    private Uni<List<Object[]>> listColumns(List<ProductField> columns, String where, Map<String, Object> parameters, Sort sort, int limit) {
+        return replicaRouting.read(null,
+                () -> replicaReader.listColumns(columns, where, parameters, sort, limit),
+                () -> selectColumns(selectClause(columns)
+                        + (where.isEmpty() ? "" : " where " + where)
+                        + orderBy(sort), parameters, limit));
+    }
+
+    private static String orderBy(Sort sort) {
+        return sort.getColumns().stream()
+                .map(column -> column.getName() + (column.getDirection() == Sort.Direction.Descending ? " desc" : " asc"))
+                .collect(Collectors.joining(", ", " order by ", ""));
+    }
+
+    /**
+     * Runs a projection query and returns its rows as arrays, without hydrating or tracking entities.
+     * A {@code limit} of zero means no limit.
+     */
+    protected Uni<List<Object[]>> selectColumns(String hql, Map<String, Object> parameters, int limit) {
+        return Panache.getSession().chain(session -> {
+            Mutiny.SelectionQuery<Object[]> query = session.createSelectionQuery(hql, Object[].class);
+            parameters.forEach(query::setParameter);
+            if (limit > 0) {
+                query.setMaxResults(limit);
+            }
+            return query.getResultList();
+        });
+    }
+
+    private static String selectClause(List<ProductField> columns) {
+        return columns.stream()
+                .map(ProductField::attribute)
+                .collect(Collectors.joining(", ", "select ", " from Product"));
+    }
+
+    private static List<ProductField> columnsWith(Set<ProductField> fields, ProductField... required) {
+        EnumSet<ProductField> columns = EnumSet.copyOf(fields);
+        columns.addAll(Arrays.asList(required));
+        return List.copyOf(columns);
+    }
+
+    private static List<ProductView> toViews(List<Object[]> rows, List<ProductField> columns, Set<ProductField> fields) {
+        return rows.stream().map(row -> ProductView.fromRow(row, columns, fields)).toList();
+    }
+
+    private static <T> ProductPage<T> toPage(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new ProductPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new ProductPage<>(items, cursorOf.apply(items.get(pageSize - 1)));
+    }
+
+    public Multi<Product> streamAll() {
+        return streamChunks().onItem().transformToIterable(rows -> rows);
+    }
+
+    /**
+     * The whole catalog in ID order, as chunks of {@code product.stream.chunk-size} rows. Each
+     * chunk is read in a session of its own, so callers need none, and should not open one around
+     * the stream: the chunks would then share it and it would grow with the catalog.
+     */
+    public Multi<List<Product>> streamChunks() {
+        // Walk the table in id order one chunk at a time; only a single chunk is ever held in memory
+        return Multi.createBy().repeating()
+                .uni(AtomicLong::new, lastId -> listProductsAfter(lastId.get(), streamChunkSize)
+                        .invoke(rows -> {
+                            if (!rows.isEmpty()) {
+                                lastId.set(rows.get(rows.size() - 1).id);
+                            }
+                        }))
+                .until(List::isEmpty);
+    }
+
+    // Make this protected to allow mocking
+    protected Uni<List<Product>> listProductsAfter(long afterId, int limit) {
+        return replicaRouting.read(null,
+                () -> replicaReader.list("id > :afterId", Map.of("afterId", afterId), Sort.by("id"), limit),
+                // Streams returning Multi get no session from Quarkus REST; a page read in one reuses it
+                () -> Panache.withSession(() -> Product.<Product>find("id > ?1", Sort.by("id"), afterId)
+                        .range(0, limit - 1)
+                        .list()));
+    }
+
+    // Every write goes through here, so it is timed per operation
+    private <T> Uni<T> inTransaction(String operation, Supplier<Uni<T>> work) {
+        return metrics.timeTransaction(operation, () -> runInTransaction(work));
+    }
+
+    // Tests and benchmarks override this to run the pipelines without a session
+    protected <T> Uni<T> runInTransaction(Supplier<Uni<T>> work) {
+        return Panache.withTransaction(work);
+    }
+
+    // Detach streamed rows so the session does not grow with the catalog
+    protected Uni<Void> clearSession() {
+        return Panache.getSession().invoke(Mutiny.Session::clear).replaceWithVoid();
     }
 
     public Uni<Product> getById(Long id) {
         return findProductById(id)
                 .onItem()
                 .ifNull()
-                .failWith(() -> new ProductNotFoundException("Product with ID " + id + " not found."));
+                .failWith(() -> new ProductNotFoundException(id));
     }
 
     // Make this protected to allow mocking
     protected Uni<Product> findProductById(Long id) {
-        return Product.findById(id);
+        Product cached = productCache.get(id);
+        if (cached != null) {
+            return Uni.createFrom().item(cached);
+        }
+        long stamp = productCache.stamp();
+        return loadProductById(id)
+                .invoke(product -> {
+                    if (product != null) {
+                        productCache.putIfUnchanged(product, stamp);
+                    }
+                });
+    }
+
+    // Concurrent misses for the same ID share a load, and distinct IDs are batched into one query
+    protected Uni<Product> loadProductById(Long id) {
+        return productLoader.load(id, this::loadProductsByIds);
+    }
+
+    protected Uni<List<Product>> loadProductsByIds(List<Long> ids) {
+        return replicaRouting.readMany(ids, () -> replicaReader.findByIds(ids), () -> Product.list("id in ?1", ids));
+    }
+
+    public CacheStatistics cacheStatistics() {
+        return productCache.statistics();
+    }
+
+    public CatalogStats catalogStats() {
+        return catalogStatistics.statistics();
+    }
+
+    /**
+     * One page of the products with a quantity of at most {@code threshold}, lowest stock first,
+     * served from the in-memory stock index. The cursor is the quantity and ID of the last product
+     * on the previous page.
+     */
+    public Uni<ProductPage<StockLevel>> lowStock(Integer threshold, String cursor, Integer size) {
+        return Uni.createFrom().item(() -> {
+            int maxQuantity = threshold == null ? lowStockThreshold : threshold;
+            if (maxQuantity < 0) {
+                throw new ValidationException("Low-stock threshold must not be negative.");
+            }
+            CatalogStatistics.Level after = parseLevelCursor(cursor);
+            int pageSize = resolvePageSize(size);
+            // A cursor from a page with a higher threshold is already past every level at or below this one
+            if (after != null && after.quantity() > maxQuantity) {
+                return new ProductPage<>(List.of(), null);
+            }
+            List<CatalogStatistics.Level> levels = catalogStatistics.lowStock(maxQuantity, after, pageSize);
+            String nextCursor = null;
+            if (levels.size() > pageSize) {
+                levels = levels.subList(0, pageSize);
+                CatalogStatistics.Level last = levels.get(pageSize - 1);
+                nextCursor = last.quantity() + ":" + last.id();
+            }
+            List<StockLevel> items = levels.stream()
+                    .map(level -> new StockLevel(level.id(), level.quantity()))
+                    .toList();
+            return new ProductPage<>(items, nextCursor);
+        });
+    }
+
+    private static CatalogStatistics.Level parseLevelCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.indexOf(':');
+        try {
+            CatalogStatistics.Level level = new CatalogStatistics.Level(
+                    Integer.parseInt(cursor.substring(0, Math.max(separator, 0))),
+                    Long.parseLong(cursor.substring(separator + 1)));
+            if (level.quantity() < 0 || level.id() < 0) {
+                throw new ValidationException("Invalid cursor: " + cursor);
+            }
+            return level;
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Rebuilds the catalog statistics from one pass over the table and returns the number of
+     * products read. Products written by this instance during the pass keep their live entry.
+     */
+    public Uni<Long> rebuildStatistics() {
+        return Uni.createFrom().deferred(() -> {
+            CatalogStatistics.Rebuild rebuild = catalogStatistics.rebuild();
+            return streamAll()
+                    .invoke(rebuild::add)
+                    .collect().with(Collectors.counting())
+                    .invoke(count -> {
+                        if (!rebuild.finish()) {
+                            LOG.debug("Catalog statistics rebuild was superseded by a newer one");
+                        }
+                    });
+        });
     }
 
     public Uni<Product> update(Long id, Product product) {
-        if (product.price < 0 || product.quantity < 0) {
-            throw new ValidationException("Product price and quantity must be non-negative.");
+        return update(id, product, null);
+    }
+
+    /**
+     * Overwrites the product with a single {@code UPDATE}, without loading it first. With an
+     * {@code expectedVersion} the row only changes if it still has that version, otherwise
+     * {@link ProductModifiedException} is raised.
+     */
+    public Uni<Product> update(Long id, Product product, Long expectedVersion) {
+        String error = product == null ? "Product is required." : validationError(product, false);
+        if (error != null) {
+            return Uni.createFrom().failure(new ValidationException(error));
+        }
+        return this.<Product>inTransaction("update", () -> updateProduct(id, product, expectedVersion)
+                        .flatMap(updated -> updated > 0
+                                ? savedVersion(id, expectedVersion)
+                                : this.<Long>writeRejected(id, expectedVersion))
+                        .map(version -> savedCopy(id, product, version)))
+                .invoke(saved -> productSaved(ProductChangeType.UPDATED, saved));
+    }
+
+    protected Uni<Integer> updateProduct(Long id, Product product, Long expectedVersion) {
+        Parameters parameters = Parameters.with("id", id)
+                .and("name", product.name)
+                .and("description", product.description)
+                .and("price", product.price)
+                .and("quantity", product.quantity);
+        String where = "id = :id";
+        if (expectedVersion != null) {
+            where += " and version = :version";
+            parameters.and("version", expectedVersion);
+        }
+        return Product.update("name = :name, description = :description, price = :price, quantity = :quantity, "
+                + "version = version + 1 where " + where, parameters);
+    }
+
+    // With If-Match the new version is known; a blind update has to read it back
+    private Uni<Long> savedVersion(Long id, Long expectedVersion) {
+        return expectedVersion != null ? Uni.createFrom().item(expectedVersion + 1) : loadVersion(id);
+    }
+
+    protected Uni<Long> loadVersion(Long id) {
+        return Panache.getSession().chain(session -> session
+                .createSelectionQuery("select version from Product where id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResult());
+    }
+
+    // Only reached when a conditional write matched no row, to tell "not found" from "modified"
+    private <T> Uni<T> writeRejected(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Uni.createFrom().failure(new ProductNotFoundException(id));
         }
-        return Panache.withTransaction(() -> Product.<Product>findById(id)
-                .onItem().ifNotNull().invoke(entity -> {
-                    entity.name = product.name;
-                    entity.description = product.description;
-                    entity.price = product.price;
-                    entity.quantity = product.quantity;
-                }));
+        return productExists(id)
+                .flatMap(exists -> Uni.createFrom().failure(exists
+                        ? new ProductModifiedException("Product with ID " + id + " has been modified since version " + expectedVersion + ".")
+                        : new ProductNotFoundException(id)));
+    }
+
+    private static Product savedCopy(Long id, Product product, Long version) {
+        Product saved = new Product(product.name, product.description, product.price, product.quantity);
+        saved.id = id;
+        saved.version = version;
+        return saved;
+    }
+
+    public Uni<ProductPage<Product>> search(String query, String cursor, Integer size) {
+        return Uni.createFrom().item(() -> {
+            if (query == null || query.isBlank()) {
+                throw new ValidationException("Search query must not be blank.");
+            }
+            long offset = parseIdCursor(cursor);
+            if (offset > Integer.MAX_VALUE) {
+                throw new ValidationException("Invalid cursor: " + cursor);
+            }
+            int pageSize = resolvePageSize(size);
+            List<Product> hits = searchIndex.search(query, (int) offset, pageSize);
+            if (hits.size() <= pageSize) {
+                return new ProductPage<>(hits, null);
+            }
+            return new ProductPage<>(hits.subList(0, pageSize), String.valueOf(offset + pageSize));
+        });
+    }
+
+    public EntityTag productTag(Product product) {
+        return productVersions.productTag(product);
+    }
+
+    public Long expectedVersion(Long id, String ifMatch) {
+        return productVersions.expectedVersion(id, ifMatch);
+    }
+
+    public EntityTag catalogTag() {
+        return productVersions.catalogTag();
+    }
+
+    /**
+     * Whether a catalog-wide read started now is served by the replica, which can be behind
+     * {@link #catalogTag()}.
+     */
+    public boolean catalogReadFromReplica() {
+        return replicaRouting.catalogReadsFromReplica();
+    }
+
+    /**
+     * Changes committed from now on, preceded by those after {@code lastEventId} when given.
+     */
+    public Multi<ProductChange> changes(String lastEventId) {
+        return changeBroadcaster.changes(lastEventId);
+    }
+
+    public String changeEventId(ProductChange change) {
+        return changeBroadcaster.eventId(change);
+    }
+
+    // Keep the in-process read models in step with a committed write; the catalog version is bumped
+    // after them and the change is published last, once everything a subscriber might read is current
+    private void productSaved(ProductChangeType type, Product product) {
+        replicaRouting.markWritten(product.id);
+        productLoader.forget(product.id);
+        StockCounter counter = stockCounters.counter(product.id);
+        if (counter != null && product.quantity != null) {
+            counter.rebase(product.quantity);
+        }
+        productCache.refresh(product);
+        searchIndex.put(product);
+        catalogStatistics.put(product);
+        productVersions.bump();
+        changeBroadcaster.publish(type, product.id, product, null);
+    }
+
+    private void productDeleted(Long id) {
+        replicaRouting.markWritten(id);
+        productLoader.forget(id);
+        stockCounters.remove(id);
+        productCache.invalidate(id);
+        searchIndex.remove(id);
+        catalogStatistics.remove(id);
+        productVersions.bump();
+        changeBroadcaster.publish(ProductChangeType.DELETED, id, null, null);
+    }
+
+    private void stockChanged(Long id, int delta) {
+        replicaRouting.markWritten(id);
+        productLoader.forget(id);
+        productCache.invalidate(id);
+        searchIndex.adjustQuantity(id, delta);
+        catalogStatistics.adjustQuantity(id, delta);
+        productVersions.bump();
+        changeBroadcaster.publish(ProductChangeType.STOCK, id, null, delta);
+    }
+
+    private static void applyChanges(Product entity, Product product) {
+        entity.name = product.name;
+        entity.description = product.description;
+        entity.price = product.price;
+        entity.quantity = product.quantity;
     }
 
     public Uni<Boolean> delete(Long id) {
-        return Panache.withTransaction(() -> Product.deleteById(id))
-                .map(deleted -> deleted)
-                .onItem().ifNull().failWith(() -> new ProductNotFoundException("Product with ID " + id + " not found."));
+        return delete(id, null);
+    }
+
+    /**
+     * Deletes with a single {@code DELETE}, without loading the product first. Returns false if
+     * there is no such product; a version mismatch raises {@link ProductModifiedException}.
+     */
+    public Uni<Boolean> delete(Long id, Long expectedVersion) {
+        return inTransaction("delete", () -> deleteProduct(id, expectedVersion)
+                        .flatMap(deleted -> deleted > 0 || expectedVersion == null
+                                ? Uni.createFrom().item(deleted > 0)
+                                : this.<Boolean>writeRejected(id, expectedVersion)
+                                        .onFailure(ProductNotFoundException.class).recoverWithItem(false)))
+                .invoke(deleted -> {
+                    if (Boolean.TRUE.equals(deleted)) {
+                        productDeleted(id);
+                    }
+                })
+                .onItem().ifNull().failWith(() -> new ProductNotFoundException(id));
+    }
+
+    protected Uni<Long> deleteProduct(Long id, Long expectedVersion) {
+        return expectedVersion == null
+                ? Product.delete("id", id)
+                : Product.delete("id = ?1 and version = ?2", id, expectedVersion);
     }
 
     public Uni<Boolean> checkStock(Long id, int count) {
+        StockCounter counter = stockCounters.counter(id);
+        if (counter != null) {
+            return Uni.createFrom().item(counter.available() >= count);
+        }
         return findProductById(id)
                 .onItem().ifNotNull().transform(product -> product.quantity >= count)
-                .onItem().ifNull().failWith(() -> new ProductNotFoundException("Product with ID " + id + " not found."));
+                .onItem().ifNull().failWith(() -> new ProductNotFoundException(id));
     }
 
-    protected Uni<List<Product>> listProductsSortedByPrice() {
-        return Product.list("ORDER BY price ASC");
+    public Uni<StockCheckResult> checkStock(List<StockCheckLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return Uni.createFrom().failure(new ValidationException("Stock check must contain at least one line."));
+        }
+        if (lines.size() > maxStockCheckLines) {
+            return Uni.createFrom().failure(new ValidationException("Stock check must not contain more than " + maxStockCheckLines + " lines."));
+        }
+        // Lines for the same product compete for the same stock, so availability is judged on their sum
+        Map<Long, Integer> requested = new HashMap<>();
+        for (StockCheckLine line : lines) {
+            if (line == null || line.productId == null || line.count == null || line.count < 0) {
+                return Uni.createFrom().failure(new ValidationException("Every line needs a product ID and a non-negative count."));
+            }
+            requested.merge(line.productId, line.count, Integer::sum);
+        }
+        // Hot SKUs are answered from their counter, which their row lags by up to one flush
+        Map<Long, Long> quantities = new HashMap<>();
+        List<Long> fromRows = new ArrayList<>();
+        for (Long id : requested.keySet()) {
+            StockCounter counter = stockCounters.counter(id);
+            if (counter != null) {
+                quantities.put(id, counter.available());
+            } else {
+                fromRows.add(id);
+            }
+        }
+        Uni<List<StockLevel>> rows = fromRows.isEmpty()
+                ? Uni.createFrom().item(List.of())
+                : listStockLevels(fromRows);
+        return rows
+                .map(levels -> {
+                    levels.stream()
+                            .filter(level -> level.quantity != null)
+                            .forEach(level -> quantities.put(level.id, (long) level.quantity));
+                    List<StockCheckLineResult> results = new ArrayList<>(lines.size());
+                    boolean allAvailable = true;
+                    for (StockCheckLine line : lines) {
+                        Long quantity = quantities.get(line.productId);
+                        boolean available = quantity != null && quantity >= requested.get(line.productId);
+                        results.add(new StockCheckLineResult(line.productId, line.count, quantity != null, available));
+                        allAvailable &= available;
+                    }
+                    return new StockCheckResult(allAvailable, results);
+                });
+    }
+
+    // One IN query selecting only id and quantity, no entity hydration
+    protected Uni<List<StockLevel>> listStockLevels(List<Long> ids) {
+        return replicaRouting.read(null,
+                () -> replicaReader.listStockLevels(ids),
+                () -> Product.find("id in ?1", ids).project(StockLevel.class).list());
+    }
+
+    public Uni<Boolean> reserveStock(Long id, int count) {
+        if (count <= 0) {
+            return Uni.createFrom().failure(new ValidationException("Stock count must be positive."));
+        }
+        if (stockCounters.isHot(id)) {
+            return hotCounter(id).map(counter -> counter.reserve(count));
+        }
+        // A single conditional UPDATE: the row lock taken by MySQL serialises concurrent reservers
+        return inTransaction("reserve", () -> reserveQuantity(id, count))
+                .flatMap(updated -> updated > 0
+                        ? Uni.createFrom().item(true)
+                        : requireProduct(id).replaceWith(false))
+                .invoke(reserved -> {
+                    if (reserved) {
+                        stockChanged(id, -count);
+                    }
+                });
+    }
+
+    public Uni<Boolean> releaseStock(Long id, int count) {
+        if (count <= 0) {
+            return Uni.createFrom().failure(new ValidationException("Stock count must be positive."));
+        }
+        if (stockCounters.isHot(id)) {
+            return hotCounter(id).map(counter -> {
+                counter.release(count);
+                return true;
+            });
+        }
+        return inTransaction("release", () -> releaseQuantity(id, count))
+                .flatMap(updated -> updated > 0
+                        ? Uni.createFrom().item(true)
+                        : Uni.createFrom().<Boolean>failure(new ProductNotFoundException(id)))
+                .invoke(() -> stockChanged(id, count));
+    }
+
+    // Hot SKUs are served from their in-memory counter; the first reservation loads it from the row
+    private Uni<StockCounter> hotCounter(Long id) {
+        StockCounter counter = stockCounters.counter(id);
+        if (counter != null) {
+            return Uni.createFrom().item(counter);
+        }
+        return loadQuantity(id)
+                .onItem().ifNull().failWith(() -> new ProductNotFoundException(id))
+                .map(quantity -> stockCounters.load(id, quantity));
+    }
+
+    protected Uni<Integer> loadQuantity(Long id) {
+        return Panache.getSession().chain(session -> session
+                .createSelectionQuery("select quantity from Product where id = :id", Integer.class)
+                .setParameter("id", id)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Writes the net stock change of every hot SKU counter in one transaction and returns the
+     * number of rows updated. If the transaction fails, the changes stay pending for the next flush.
+     * <p>
+     * A change the row cannot take, because its stock was lowered behind the counter's back, also
+     * stays pending: the reservations behind it were confirmed. The counter is rebased on the row
+     * instead, so it hands out nothing more until stock is added and the change fits.
+     */
+    public Uni<Integer> flushStockCounters() {
+        Map<Long, Long> deltas = stockCounters.drain();
+        if (deltas.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        return inTransaction("stock-flush", () -> applyStockDeltas(deltas)
+                        .flatMap(applied -> loadUnapplied(deltas.keySet(), applied)
+                                .map(unapplied -> new StockFlush(applied, unapplied))))
+                .onFailure().invoke(() -> stockCounters.restore(deltas))
+                .invoke(flush -> deltas.forEach((id, delta) -> {
+                    StockCounter counter = stockCounters.counter(id);
+                    if (flush.applied().contains(id)) {
+                        if (counter != null) {
+                            counter.flushed(delta);
+                        }
+                        stockChanged(id, Math.toIntExact(delta));
+                    } else if (!flush.unapplied().containsKey(id)) {
+                        LOG.debugf("Dropping the stock counter of deleted product %d", id);
+                        stockCounters.remove(id);
+                    } else if (counter != null) {
+                        int quantity = flush.unapplied().get(id);
+                        if (counter.durable() != quantity) {
+                            LOG.warnf("Product %d has %d in stock, too little for its pending change of %d; keeping the change until stock is added",
+                                    id, quantity, delta);
+                        }
+                        counter.restore(delta);
+                        counter.rebase(quantity);
+                    }
+                }))
+                .map(flush -> flush.applied().size());
+    }
+
+    // The quantities of the rows a delta could not be applied to; deleted rows are left out
+    private Uni<Map<Long, Integer>> loadUnapplied(Set<Long> ids, Set<Long> applied) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        return Multi.createFrom().iterable(ids)
+                .select().where(id -> !applied.contains(id))
+                .onItem().transformToUniAndConcatenate(id -> loadQuantity(id)
+                        .invoke(quantity -> {
+                            if (quantity != null) {
+                                quantities.put(id, quantity);
+                            }
+                        }))
+                .collect().asList()
+                .replaceWith(quantities);
+    }
+
+    // One guarded UPDATE per hot SKU; returns the IDs whose row was updated
+    protected Uni<Set<Long>> applyStockDeltas(Map<Long, Long> deltas) {
+        Set<Long> applied = ConcurrentHashMap.newKeySet();
+        return Multi.createFrom().iterable(deltas.entrySet())
+                .onItem().transformToUniAndConcatenate(entry -> Product.update(
+                                "quantity = quantity + ?1, version = version + 1 where id = ?2 and quantity + ?1 >= 0",
+                                entry.getValue(), entry.getKey())
+                        .invoke(updated -> {
+                            if (updated > 0) {
+                                applied.add(entry.getKey());
+                            }
+                        }))
+                .collect().asList()
+                .replaceWith(applied);
+    }
+
+    protected Uni<Integer> reserveQuantity(Long id, int count) {
+        return Product.update("quantity = quantity - ?1, version = version + 1 where id = ?2 and quantity >= ?1", count, id);
+    }
+
+    protected Uni<Integer> releaseQuantity(Long id, int count) {
+        return Product.update("quantity = quantity + ?1, version = version + 1 where id = ?2", count, id);
+    }
+
+    protected Uni<Boolean> productExists(Long id) {
+        return Product.count("id", id).map(count -> count > 0);
+    }
+
+    // Only reached when a conditional update matched no row, to tell "not found" from "not enough stock"
+    private Uni<Void> requireProduct(Long id) {
+        return productExists(id)
+                .flatMap(exists -> exists
+                        ? Uni.createFrom().voidItem()
+                        : Uni.createFrom().failure(new ProductNotFoundException(id)));
+    }
+
+    public Uni<BatchResult> createBatch(List<Product> products) {
+        Uni<BatchResult> rejected = rejectBatch(products);
+        if (rejected != null) {
+            return rejected;
+        }
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+        List<Integer> accepted = validateBatch(products, results, false);
+        return Multi.createFrom().iterable(chunks(accepted))
+                .onItem().transformToUniAndConcatenate(chunk -> {
+                    List<Product> entities = chunk.stream().map(products::get).toList();
+                    return createAll("create-batch", entities)
+                            .invoke(() -> chunk.forEach(i -> results[i] = BatchItemResult.success(i, products.get(i).id, 201)))
+                            .replaceWith(chunk.size())
+                            // The IDs allocated for a failed chunk were never stored, so they are not reported
+                            .onFailure().recoverWithItem(failure -> failChunk(chunk, i -> null, results, failure));
+                })
+                .collect().last()
+                .map(ignored -> BatchResult.of(results));
+    }
+
+    /**
+     * Inserts already validated products in one transaction, giving them new IDs. Used by bulk
+     * imports, which validate and report on each record themselves.
+     */
+    public Uni<Void> importChunk(List<Product> products) {
+        return createAll("import", products);
+    }
+
+    private Uni<Void> createAll(String operation, List<Product> entities) {
+        return idAllocator.nextIds(entities.size())
+                .invoke(ids -> {
+                    for (int i = 0; i < entities.size(); i++) {
+                        assignNewId(entities.get(i), ids.get(i));
+                    }
+                })
+                .chain(() -> inTransaction(operation, () -> persistAll(entities)))
+                .call(this::clearSession)
+                .invoke(() -> entities.forEach(product -> productSaved(ProductChangeType.CREATED, product)));
+    }
+
+    // With the ID set before persist, Hibernate tells a new entity by its version; a version sent
+    // by the client, e.g. in a re-posted GET response, would make it look detached
+    private static void assignNewId(Product product, Long id) {
+        product.id = id;
+        product.version = null;
+    }
+
+    public Uni<BatchResult> updateBatch(List<Product> products) {
+        Uni<BatchResult> rejected = rejectBatch(products);
+        if (rejected != null) {
+            return rejected;
+        }
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+        List<Integer> accepted = validateBatch(products, results, true);
+        return Multi.createFrom().iterable(chunks(accepted))
+                .onItem().transformToUniAndConcatenate(chunk -> {
+                    List<Long> ids = chunk.stream().map(i -> products.get(i).id).distinct().toList();
+                    // One SELECT per chunk; the dirty-checked UPDATEs are flushed as one JDBC batch
+                    return inTransaction("update-batch", () -> listProductsByIds(ids)
+                                    .map(found -> {
+                                        Map<Long, Product> byId = found.stream()
+                                                .collect(Collectors.toMap(entity -> entity.id, Function.identity()));
+                                        for (int i : chunk) {
+                                            Product entity = byId.get(products.get(i).id);
+                                            if (entity == null) {
+                                                results[i] = BatchItemResult.failure(i, products.get(i).id, 404,
+                                                        "Product with ID " + products.get(i).id + " not found.");
+                                            } else {
+                                                applyChanges(entity, products.get(i));
+                                                results[i] = BatchItemResult.success(i, entity.id, 200);
+                                            }
+                                        }
+                                        return found;
+                                    }))
+                            .invoke(updated -> updated.forEach(product -> productSaved(ProductChangeType.UPDATED, product)))
+                            .call(this::clearSession)
+                            .replaceWith(chunk.size())
+                            .onFailure().recoverWithItem(failure -> failChunk(chunk, i -> products.get(i).id, results, failure));
+                })
+                .collect().last()
+                .map(ignored -> BatchResult.of(results));
+    }
+
+    public Uni<BatchResult> deleteBatch(List<Long> ids) {
+        Uni<BatchResult> rejected = rejectBatch(ids);
+        if (rejected != null) {
+            return rejected;
+        }
+        BatchItemResult[] results = new BatchItemResult[ids.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = BatchItemResult.failure(i, null, 400, "Product ID is required.");
+            } else {
+                accepted.add(i);
+            }
+        }
+        return Multi.createFrom().iterable(chunks(accepted))
+                .onItem().transformToUniAndConcatenate(chunk -> {
+                    List<Long> chunkIds = chunk.stream().map(ids::get).distinct().toList();
+                    return inTransaction("delete-batch", () -> listExistingIds(chunkIds)
+                                    .call(existing -> existing.isEmpty()
+                                            ? Uni.createFrom().voidItem()
+                                            : deleteByIds(existing)))
+                            .invoke(existing -> {
+                                Set<Long> deleted = Set.copyOf(existing);
+                                for (int i : chunk) {
+                                    Long id = ids.get(i);
+                                    if (deleted.contains(id)) {
+                                        productDeleted(id);
+                                        results[i] = BatchItemResult.success(i, id, 200);
+                                    } else {
+                                        results[i] = BatchItemResult.failure(i, id, 404, "Product with ID " + id + " not found.");
+                                    }
+                                }
+                            })
+                            .replaceWith(chunk.size())
+                            .onFailure().recoverWithItem(failure -> {
+                                chunk.forEach(i -> results[i] = BatchItemResult.failure(i, ids.get(i), 500, failure.getMessage()));
+                                return 0;
+                            });
+                })
+                .collect().last()
+                .map(ignored -> BatchResult.of(results));
+    }
+
+    protected Uni<Void> persistAll(List<Product> products) {
+        return Product.persist(products);
+    }
+
+    protected Uni<List<Product>> listProductsByIds(List<Long> ids) {
+        return Product.list("id in ?1", ids);
+    }
+
+    protected Uni<List<Long>> listExistingIds(List<Long> ids) {
+        return Panache.getSession().chain(session -> session
+                .createSelectionQuery("select p.id from Product p where p.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    protected Uni<Integer> deleteByIds(List<Long> ids) {
+        return Product.delete("id in ?1", ids).map(Long::intValue);
+    }
+
+    // The failure to return for a batch that is empty or too large, or null if it may be processed
+    private Uni<BatchResult> rejectBatch(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            return Uni.createFrom().failure(new ValidationException("Batch must contain at least one item."));
+        }
+        if (items.size() > maxBatchItems) {
+            return Uni.createFrom().failure(new PayloadTooLargeException("Batch must not contain more than " + maxBatchItems + " items."));
+        }
+        return null;
+    }
+
+    // Records a 400 result for every invalid item and returns the indexes of the ones that may be written
+    private List<Integer> validateBatch(List<Product> products, BatchItemResult[] results, boolean requireId) {
+        List<Integer> accepted = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            String error = product == null ? "Product is required." : validationError(product, requireId);
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, product == null ? null : product.id, 400, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+        return accepted;
+    }
+
+    String validationError(Product product, boolean requireId) {
+        if (requireId && product.id == null) {
+            return "Product ID is required.";
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
     }
 
-    public Uni<List<Product>> sortByPrice() {
-        return listProductsSortedByPrice();
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < indexes.size(); from += batchChunkSize) {
+            chunks.add(indexes.subList(from, Math.min(from + batchChunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private static int failChunk(List<Integer> chunk, IntFunction<Long> ids, BatchItemResult[] results, Throwable failure) {
+        chunk.forEach(i -> results[i] = BatchItemResult.failure(i, ids.apply(i), 500, failure.getMessage()));
+        return 0;
+    }
+
+    public Uni<ProductPage<Product>> sortByPrice(PriceSortParams params) {
+        return Uni.createFrom().item(() -> priceQuery(params))
+                .flatMap(query -> listProductsByPrice(query.where(), query.parameters(), query.sort(), query.pageSize() + 1)
+                        .map(rows -> toPage(rows, query.pageSize(), last -> last.price + ":" + last.id)));
+    }
+
+    public Uni<ProductPage<ProductView>> sortByPrice(PriceSortParams params, Set<ProductField> fields) {
+        return Uni.createFrom().item(() -> priceQuery(params))
+                .flatMap(query -> sortByPrice(query, fields));
+    }
+
+    private Uni<ProductPage<ProductView>> sortByPrice(PriceQuery query, Set<ProductField> fields) {
+        // price and id are always selected because the cursor is built from them
+        List<ProductField> columns = columnsWith(fields, ProductField.ID, ProductField.PRICE);
+        int idColumn = columns.indexOf(ProductField.ID);
+        int priceColumn = columns.indexOf(ProductField.PRICE);
+        return listColumns(columns, query.where(), query.parameters().map(), query.sort(), query.pageSize() + 1)
+                .map(rows -> toPage(rows, query.pageSize(), last -> last[priceColumn] + ":" + last[idColumn]))
+                .map(page -> new ProductPage<>(toViews(page.items, columns, fields), page.nextCursor));
+    }
+
+    private record StockFlush(Set<Long> applied, Map<Long, Integer> unapplied) {
+    }
+
+    private record PriceQuery(String where, Parameters parameters, Sort sort, int pageSize) {
+    }
+
+    private PriceQuery priceQuery(PriceSortParams params) {
+        boolean descending = parseOrder(params.order);
+        if (params.minPrice != null && params.maxPrice != null && params.minPrice > params.maxPrice) {
+            throw new ValidationException("minPrice must not be greater than maxPrice.");
+        }
+        int pageSize = resolvePageSize(params.limit);
+
+        // Every predicate is a range on (price, id), so MySQL can walk idx_product_price_id and stop after the page
+        List<String> predicates = new ArrayList<>();
+        Parameters parameters = new Parameters();
+        if (params.minPrice != null) {
+            predicates.add("price >= :minPrice");
+            parameters.and("minPrice", params.minPrice);
+        }
+        if (params.maxPrice != null) {
+            predicates.add("price <= :maxPrice");
+            parameters.and("maxPrice", params.maxPrice);
+        }
+        if (params.cursor != null && !params.cursor.isBlank()) {
+            String op = descending ? "<" : ">";
+            predicates.add("(price " + op + " :afterPrice or (price = :afterPrice and id " + op + " :afterId))");
+            parameters.and("afterPrice", parsePriceCursor(params.cursor))
+                    .and("afterId", parsePriceCursorId(params.cursor));
+        }
+        Sort.Direction direction = descending ? Sort.Direction.Descending : Sort.Direction.Ascending;
+        Sort sort = Sort.by("price", direction).and("id", direction);
+        return new PriceQuery(String.join(" and ", predicates), parameters, sort, pageSize);
+    }
+
+    protected Uni<List<Product>> listProductsByPrice(String where, Parameters parameters, Sort sort, int limit) {
+        return replicaRouting.read(null,
+                () -> replicaReader.list(where, parameters.map(), sort, limit),
+                () -> Product.<Product>find(where, sort, parameters)
+                        .range(0, limit - 1)
+                        .list());
+    }
+
+    private static boolean parseOrder(String order) {
+        if (order == null || order.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (order.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new ValidationException("order must be asc or desc.");
+    }
+
+    // Price cursors have the form "<price>:<id>"
+    private static double parsePriceCursor(String cursor) {
+        try {
+            return Double.parseDouble(cursor.substring(0, cursor.lastIndexOf(':')));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static long parsePriceCursorId(String cursor) {
+        try {
+            return Long.parseLong(cursor.substring(cursor.lastIndexOf(':') + 1));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private long parseIdCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        long value;
+        try {
+            value = Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+        if (value < 0) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+        return value;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        if (size < 1) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        return Math.min(size, maxPageSize);
     }
 }
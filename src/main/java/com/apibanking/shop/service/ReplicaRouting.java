@@ -0,0 +1,116 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.metrics.ProductMetrics;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a read may go to the replica.
+ * <p>
+ * Reads stay on the primary when replica reads are disabled, when the replica failed recently,
+ * or when this instance wrote the data within the read-your-writes window. For catalog-wide
+ * reads that means any write. A replica read that fails is retried on the primary.
+ */
+@ApplicationScoped
+public class ReplicaRouting {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final long retryAfterNanos;
+    private final ProductMetrics metrics;
+
+    private final Map<Long, Long> recentWrites = new ConcurrentHashMap<>();
+    private volatile long lastWrite;
+    private volatile long replicaDownUntil;
+
+    @Inject
+    public ReplicaRouting(@ConfigProperty(name = "product.read-replica.enabled", defaultValue = "false") boolean enabled,
+                          @ConfigProperty(name = "product.read-replica.read-your-writes-window", defaultValue = "PT2S") Duration window,
+                          @ConfigProperty(name = "product.read-replica.retry-after", defaultValue = "PT5S") Duration retryAfter,
+                          ProductMetrics metrics) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.metrics = metrics;
+        long now = System.nanoTime();
+        this.lastWrite = now - windowNanos - 1;
+        this.replicaDownUntil = now;
+    }
+
+    public void markWritten(Long id) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrite = now;
+        recentWrites.put(id, now);
+        if (recentWrites.size() > PURGE_THRESHOLD) {
+            recentWrites.values().removeIf(written -> now - written > windowNanos);
+        }
+    }
+
+    /**
+     * Reads from the replica when allowed. {@code id} is the product being read, or null for a
+     * read that spans the catalog.
+     */
+    public <T> Uni<T> read(Long id, Supplier<Uni<T>> replica, Supplier<Uni<T>> primary) {
+        return route(replicaAllowed(id), replica, primary);
+    }
+
+    /**
+     * Reads several products from the replica when none of them was written within the window.
+     */
+    public <T> Uni<T> readMany(Collection<Long> ids, Supplier<Uni<T>> replica, Supplier<Uni<T>> primary) {
+        boolean allowed = true;
+        for (Long id : ids) {
+            allowed &= replicaAllowed(id);
+        }
+        return route(allowed, replica, primary);
+    }
+
+    /**
+     * Whether a read that spans the catalog would go to the replica right now.
+     */
+    public boolean catalogReadsFromReplica() {
+        return replicaAllowed(null);
+    }
+
+    private <T> Uni<T> route(boolean replicaAllowed, Supplier<Uni<T>> replica, Supplier<Uni<T>> primary) {
+        if (!replicaAllowed) {
+            metrics.countRead("primary");
+            return primary.get();
+        }
+        metrics.countRead("replica");
+        return replica.get()
+                .onFailure().recoverWithUni(failure -> {
+                    replicaDownUntil = System.nanoTime() + retryAfterNanos;
+                    metrics.countRead("fallback");
+                    return primary.get();
+                });
+    }
+
+    private boolean replicaAllowed(Long id) {
+        if (!enabled) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - replicaDownUntil < 0) {
+            return false;
+        }
+        if (id == null) {
+            return now - lastWrite >= windowNanos;
+        }
+        Long written = recentWrites.get(id);
+        return written == null || now - written >= windowNanos;
+    }
+}
@@ -0,0 +1,42 @@
+package com.apibanking.shop.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes the hot-SKU stock counters to MySQL every {@code product.stock.flush-interval}, and once
+ * more on shutdown so accepted reservations are not lost with the process.
+ */
+@ApplicationScoped
+public class StockCounterFlusher {
+
+    private static final Logger LOG = Logger.getLogger(StockCounterFlusher.class);
+
+    @Inject
+    ProductService productService;
+
+    @Scheduled(every = "${product.stock.flush-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> flush() {
+        return productService.flushStockCounters()
+                .onFailure().invoke(failure -> LOG.warn("Flushing the hot SKU stock counters failed; retrying on the next run", failure))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            Integer flushed = VertxContextSupport.subscribeAndAwait(productService::flushStockCounters);
+            if (flushed > 0) {
+                LOG.infof("Flushed the stock counters of %d hot SKUs on shutdown", flushed);
+            }
+        } catch (Throwable e) {
+            LOG.error("Could not flush the hot SKU stock counters on shutdown", e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.apibanking.shop.stats;
+
+import com.apibanking.shop.dto.CatalogStats;
+import com.apibanking.shop.entity.Product;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catalog-wide aggregates and an index of products ordered by quantity, kept up to date by every
+ * write instead of being computed from the table.
+ * <p>
+ * Each write adjusts the aggregates by the difference between the old and the new entry, so the
+ * statistics cost O(1) and the products at or below a stock threshold O(log n + k). Writes made by
+ * other instances, or directly in MySQL, are not seen until the next {@link Rebuild}.
+ */
+@ApplicationScoped
+public class CatalogStatistics {
+
+    private static final Comparator<Level> BY_QUANTITY = Comparator.comparingInt(Level::quantity).thenComparingLong(Level::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private Rebuild rebuild;
+    private Instant reconciledAt;
+
+    /**
+     * The position of a product in the stock index. Products without a quantity are not indexed.
+     */
+    public record Level(int quantity, long id) {
+    }
+
+    private record Entry(Double price, Integer quantity) {
+
+        BigDecimal value() {
+            return price == null || quantity == null
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    private static final class State {
+
+        final Map<Long, Entry> entries = new HashMap<>();
+        final NavigableSet<Level> byQuantity = new TreeSet<>(BY_QUANTITY);
+        long totalUnits;
+        long outOfStock;
+        BigDecimal inventoryValue = BigDecimal.ZERO;
+
+        void put(Long id, Entry entry) {
+            remove(id);
+            entries.put(id, entry);
+            if (entry.quantity() != null) {
+                byQuantity.add(new Level(entry.quantity(), id));
+                totalUnits += entry.quantity();
+                if (entry.quantity() == 0) {
+                    outOfStock++;
+                }
+            }
+            inventoryValue = inventoryValue.add(entry.value());
+        }
+
+        void remove(Long id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            if (entry.quantity() != null) {
+                byQuantity.remove(new Level(entry.quantity(), id));
+                totalUnits -= entry.quantity();
+                if (entry.quantity() == 0) {
+                    outOfStock--;
+                }
+            }
+            inventoryValue = inventoryValue.subtract(entry.value());
+        }
+    }
+
+    public void put(Product product) {
+        Entry entry = new Entry(product.price, product.quantity);
+        lock.writeLock().lock();
+        try {
+            state.put(product.id, entry);
+            written(product.id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+            written(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stock changes made by conditional UPDATEs only know the delta, not the new row
+    public void adjustQuantity(Long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = state.entries.get(id);
+            // Without an entry to adjust, a rebuild in progress keeps the row it reads
+            if (entry != null && entry.quantity() != null) {
+                state.put(id, new Entry(entry.price(), Math.max(0, entry.quantity() + delta)));
+                written(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            state = new State();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void written(Long id) {
+        if (rebuild != null) {
+            rebuild.written.add(id);
+        }
+    }
+
+    public CatalogStats statistics() {
+        lock.readLock().lock();
+        try {
+            return new CatalogStats(state.entries.size(), state.totalUnits, state.inventoryValue,
+                    state.outOfStock, reconciledAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products with a quantity of at most {@code threshold}, lowest first and then by
+     * ID, starting after {@code after} if given. Returns up to {@code limit + 1} levels, so the
+     * caller can tell whether there is another page.
+     */
+    public List<Level> lowStock(int threshold, Level after, int limit) {
+        Level last = new Level(threshold, Long.MAX_VALUE);
+        if (after != null && BY_QUANTITY.compare(after, last) >= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<Level> range = after == null
+                    ? state.byQuantity.headSet(last, true)
+                    : state.byQuantity.subSet(after, false, last, true);
+            List<Level> levels = new ArrayList<>();
+            for (Level level : range) {
+                levels.add(level);
+                if (levels.size() > limit) {
+                    break;
+                }
+            }
+            return levels;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts replacing the statistics with a fresh pass over the catalog. Starting another
+     * rebuild abandons this one.
+     */
+    public Rebuild rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuild = new Rebuild();
+            return rebuild;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Collects the products of one pass over the catalog. Rows read early in the pass can be older
+     * than a write that lands meanwhile, so products written during the pass keep the entry the
+     * write left behind.
+     */
+    public final class Rebuild {
+
+        private final State scanned = new State();
+        private final Set<Long> written = new HashSet<>();
+
+        private Rebuild() {
+        }
+
+        public void add(Product product) {
+            scanned.put(product.id, new Entry(product.price, product.quantity));
+        }
+
+        /**
+         * Replaces the statistics with the products added, and returns false if this rebuild was
+         * abandoned in the meantime.
+         */
+        public boolean finish() {
+            lock.writeLock().lock();
+            try {
+                if (rebuild != this) {
+                    return false;
+                }
+                for (Long id : written) {
+                    Entry entry = state.entries.get(id);
+                    if (entry == null) {
+                        scanned.remove(id);
+                    } else {
+                        scanned.put(id, entry);
+                    }
+                }
+                state = scanned;
+                rebuild = null;
+                reconciledAt = Instant.now();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
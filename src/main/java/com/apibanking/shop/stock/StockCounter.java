@@ -0,0 +1,164 @@
+package com.apibanking.shop.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stock of one hot SKU that takes reservations and releases without a database round
+ * trip.
+ * <p>
+ * The available quantity is split over stripes so concurrent reservers mostly compare-and-set
+ * different slots. A reservation only takes units a stripe actually holds, so the sum of the
+ * stripes can never drop below zero and at most the quantity loaded from the database, plus what
+ * was released, is ever handed out. The net change since the last flush accumulates in a
+ * {@link LongAdder}; the flusher drains it and writes it to the row in one statement.
+ */
+public class StockCounter {
+
+    // Stripes sit one cache line apart so neighbouring slots do not false-share
+    private static final int SPACING = 8;
+
+    private final int stripes;
+    private final AtomicLongArray available;
+    private final LongAdder pending = new LongAdder();
+    // Held while units are gathered from several stripes, so gatherers never see each other's takings
+    private final Object gathering = new Object();
+    private long durable;
+
+    public StockCounter(long quantity, int stripes) {
+        this.stripes = stripes;
+        this.available = new AtomicLongArray(stripes * SPACING);
+        this.durable = quantity;
+        for (int i = 0; i < stripes; i++) {
+            available.set(i * SPACING, quantity / stripes + (i < quantity % stripes ? 1 : 0));
+        }
+    }
+
+    public boolean reserve(int count) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        int slot = start * SPACING;
+        long current = available.get(slot);
+        // Fast path: the home stripe covers the whole reservation
+        while (current >= count) {
+            if (available.compareAndSet(slot, current, current - count)) {
+                pending.add(-count);
+                return true;
+            }
+            current = available.get(slot);
+        }
+        return reserveAcrossStripes(start, count);
+    }
+
+    // Gathers the units from several stripes and puts them back if there are not enough in total.
+    // Units taken here are briefly missing from the stripes; two gatherers at once could each see
+    // the other's share as gone and both fail, so they take turns. The fast path only ever takes
+    // units for good and needs no lock.
+    private boolean reserveAcrossStripes(int start, int count) {
+        synchronized (gathering) {
+            return gather(start, count);
+        }
+    }
+
+    private boolean gather(int start, int count) {
+        long[] taken = new long[stripes];
+        long needed = count;
+        for (int i = 0; i < stripes && needed > 0; i++) {
+            int stripe = (start + i) % stripes;
+            int slot = stripe * SPACING;
+            long current = available.get(slot);
+            while (current > 0) {
+                long take = Math.min(current, needed);
+                if (available.compareAndSet(slot, current, current - take)) {
+                    taken[stripe] = take;
+                    needed -= take;
+                    break;
+                }
+                current = available.get(slot);
+            }
+        }
+        if (needed > 0) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    available.addAndGet(stripe * SPACING, taken[stripe]);
+                }
+            }
+            return false;
+        }
+        pending.add(-count);
+        return true;
+    }
+
+    public void release(int count) {
+        available.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * SPACING, count);
+        pending.add(count);
+    }
+
+    /**
+     * The units that can still be reserved. After a rebase below what was already handed out, the
+     * stripes owe the difference and this stays at zero until it is made up.
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += available.get(i * SPACING);
+        }
+        return Math.max(0, sum);
+    }
+
+    /**
+     * Takes the net change not yet written to the database. Changes made while draining stay for
+     * the next flush.
+     */
+    public long drain() {
+        long delta = pending.sum();
+        pending.add(-delta);
+        return delta;
+    }
+
+    /**
+     * Puts back a drained change whose flush failed.
+     */
+    public void restore(long delta) {
+        pending.add(delta);
+    }
+
+    public synchronized void flushed(long delta) {
+        durable += delta;
+    }
+
+    /**
+     * Follows a write that set the row's quantity outright. The difference to the quantity the
+     * counter assumed to be stored is added to the available stock; changes still pending are
+     * applied on top of the new quantity by the next flush.
+     */
+    public synchronized void rebase(long quantity) {
+        long difference = quantity - durable;
+        durable = quantity;
+        if (difference >= 0) {
+            available.addAndGet(0, difference);
+            return;
+        }
+        // Take the units out of the stripes that hold them; whatever cannot be taken was already sold
+        long excess = -difference;
+        for (int i = 0; i < stripes && excess > 0; i++) {
+            int slot = i * SPACING;
+            long current = available.get(slot);
+            while (current > 0) {
+                long take = Math.min(current, excess);
+                if (available.compareAndSet(slot, current, current - take)) {
+                    excess -= take;
+                    break;
+                }
+                current = available.get(slot);
+            }
+        }
+        if (excess > 0) {
+            available.addAndGet(0, -excess);
+        }
+    }
+
+    public synchronized long durable() {
+        return durable;
+    }
+}
@@ -0,0 +1,81 @@
+package com.apibanking.shop.stock;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in-memory stock counters of the SKUs listed in {@code product.stock.hot-skus}.
+ * <p>
+ * Reservations and releases of a hot SKU only touch its {@link StockCounter}; the net change is
+ * written to MySQL every {@code product.stock.flush-interval}. A counter is loaded from the row on
+ * first use and assumes this instance is the only one changing that row's stock, so a hot SKU
+ * should be served by one instance. Other SKUs keep using a conditional update per reservation.
+ */
+@ApplicationScoped
+public class StockCounterEngine {
+
+    private final Set<Long> hotSkus;
+    private final int stripes;
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+
+    @Inject
+    public StockCounterEngine(@ConfigProperty(name = "product.stock.hot-skus") Optional<List<Long>> hotSkus,
+                              @ConfigProperty(name = "product.stock.stripes", defaultValue = "16") int stripes) {
+        this.hotSkus = Set.copyOf(hotSkus.orElse(List.of()));
+        this.stripes = stripes;
+    }
+
+    public boolean isHot(Long id) {
+        return hotSkus.contains(id);
+    }
+
+    /**
+     * Returns the counter of a hot SKU, or null until it has been loaded.
+     */
+    public StockCounter counter(Long id) {
+        return counters.get(id);
+    }
+
+    /**
+     * Registers the counter of a hot SKU with the quantity read from its row. If another caller
+     * loaded it first, that counter wins and is returned.
+     */
+    public StockCounter load(Long id, long quantity) {
+        return counters.computeIfAbsent(id, ignored -> new StockCounter(quantity, stripes));
+    }
+
+    public void remove(Long id) {
+        counters.remove(id);
+    }
+
+    /**
+     * Takes the unflushed net change of every loaded counter, leaving out those without one.
+     */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> deltas = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            long delta = counter.drain();
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        });
+        return deltas;
+    }
+
+    public void restore(Map<Long, Long> deltas) {
+        deltas.forEach((id, delta) -> {
+            StockCounter counter = counters.get(id);
+            if (counter != null) {
+                counter.restore(delta);
+            }
+        });
+    }
+}
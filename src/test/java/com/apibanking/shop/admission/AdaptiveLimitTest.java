@@ -0,0 +1,102 @@
+package com.apibanking.shop.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveLimitTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Tolerates twice the baseline, reacts to nothing under 5 ms and cuts by half
+    private static AdaptiveLimit limit(int initial) {
+        return new AdaptiveLimit(initial, 1, 100, 2.0, 5 * MS, 0.5);
+    }
+
+    @Test
+    public void testRequestsOverTheLimitAreRejected() {
+        AdaptiveLimit limit = limit(2);
+
+        assertTrue(limit.tryAcquire(1.0));
+        assertTrue(limit.tryAcquire(1.0));
+        assertFalse(limit.tryAcquire(1.0));
+
+        limit.release();
+        assertTrue(limit.tryAcquire(1.0));
+        assertEquals(2, limit.inFlight());
+    }
+
+    @Test
+    public void testLowerPrioritiesOnlyGetTheirShare() {
+        AdaptiveLimit limit = limit(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(Priority.BULK.share()));
+        }
+        assertFalse(limit.tryAcquire(Priority.BULK.share()));
+        assertTrue(limit.tryAcquire(Priority.STANDARD.share()));
+        assertTrue(limit.tryAcquire(Priority.CRITICAL.share()));
+    }
+
+    @Test
+    public void testSlowRequestsCutTheLimitOncePerRound() {
+        AdaptiveLimit limit = limit(40);
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire(1.0);
+        }
+        limit.release(0, 10 * MS);
+
+        // Both started before the first cut took effect, so only the first one counts
+        limit.release(0, 100 * MS);
+        limit.release(MS, 100 * MS);
+        assertEquals(20, limit.limit());
+
+        // Admitted after the cut and still slow: the smaller limit is not enough yet
+        limit.release(200 * MS, 300 * MS);
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    public void testFastRequestsGrowTheLimitWhileItIsInUse() {
+        AdaptiveLimit limit = limit(4);
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire(1.0);
+        }
+
+        // Every fast completion at full use adds 1 / limit, so a slot takes a bit more than a round
+        for (int i = 0; i < 4; i++) {
+            limit.release(0, MS);
+            limit.tryAcquire(1.0);
+        }
+        assertEquals(4, limit.inFlight());
+        assertEquals(4, limit.limit());
+        for (int i = 0; i < 8; i++) {
+            limit.release(0, MS);
+            limit.tryAcquire(1.0);
+        }
+        assertTrue(limit.limit() >= 5);
+
+        // An idle limit does not grow
+        AdaptiveLimit idle = limit(10);
+        for (int i = 0; i < 20; i++) {
+            idle.tryAcquire(1.0);
+            idle.release(0, MS);
+        }
+        assertEquals(10, idle.limit());
+    }
+
+    @Test
+    public void testLatencyUnderTheFloorNeverCuts() {
+        AdaptiveLimit limit = limit(10);
+        limit.tryAcquire(1.0);
+        limit.release(0, MS / 10);
+        limit.tryAcquire(1.0);
+        limit.release(0, 4 * MS);
+
+        assertEquals(10, limit.limit());
+    }
+}
@@ -0,0 +1,78 @@
+package com.apibanking.shop.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdmissionControlTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String BULK = "POST /products/batch";
+    private static final String CRITICAL = "POST /products/check-stock";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    // Endpoints start at 20 and may grow to 200; all of them together may hold 40
+    private final AdmissionControl admission = new AdmissionControl(true, 20, 1, 200, 40, 2.0,
+            Duration.ofMillis(5), 0.5, Duration.ofSeconds(1), registry);
+
+    private double limit(String endpoint) {
+        return registry.get("product.admission.limit").tag("endpoint", endpoint).gauge().value();
+    }
+
+    @Test
+    public void testSlowBulkTrafficDoesNotStarveCriticalRequests() {
+        long now = 0;
+        for (int round = 0; round < 50; round++) {
+            // Fast critical requests set a baseline of 1 ms...
+            AdmissionControl.Permit critical = admission.tryAcquire(CRITICAL, Priority.CRITICAL, now);
+            assertNotNull(critical);
+            critical.release(true, now + MS);
+
+            // ...that the bulk requests, at 500 ms each, are far above
+            List<AdmissionControl.Permit> bulk = new ArrayList<>();
+            AdmissionControl.Permit permit;
+            while ((permit = admission.tryAcquire(BULK, Priority.BULK, now)) != null) {
+                bulk.add(permit);
+            }
+            assertTrue(bulk.size() <= 20, "bulk requests may only fill their share of the total");
+            now += 500 * MS;
+            for (AdmissionControl.Permit admitted : bulk) {
+                admitted.release(true, now);
+            }
+            now += MS;
+        }
+
+        assertEquals(40, limit(AdmissionControl.TOTAL));
+        assertTrue(limit(CRITICAL) >= 20, "the critical endpoint only learns from its own requests");
+
+        // With bulk at its share, the rest of the total is still there for critical requests
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(admission.tryAcquire("POST /products/import", Priority.BULK, now));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(admission.tryAcquire(CRITICAL, Priority.CRITICAL, now));
+        }
+        assertNull(admission.tryAcquire(CRITICAL, Priority.CRITICAL, now));
+    }
+
+    @Test
+    public void testTheTotalLimitIsSharedByPriority() {
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(admission.tryAcquire("GET /products/{id}", Priority.BULK, 0));
+        }
+        assertNull(admission.tryAcquire(CRITICAL, Priority.BULK, 0));
+        assertNotNull(admission.tryAcquire(CRITICAL, Priority.STANDARD, 0));
+    }
+}
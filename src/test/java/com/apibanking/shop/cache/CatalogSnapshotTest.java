@@ -0,0 +1,132 @@
+package com.apibanking.shop.cache;
+
+import com.apibanking.shop.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static Product product(long id, String name, String description, Double price, Integer quantity, Long version) {
+        Product product = new Product(name, description, price, quantity);
+        product.id = id;
+        product.version = version;
+        return product;
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    public void testRoundTripKeepsEveryColumn() throws IOException {
+        Path file = directory.resolve("snapshots/catalog.snapshot");
+        List<Product> products = List.of(
+                product(1L, "Laptop", "Thin and light", 999.99, 5, 3L),
+                product(2L, "Kaffeem\u00fchle \u2615", null, null, null, null));
+
+        long bytes = CatalogSnapshot.write(file, products);
+        List<Product> read = CatalogSnapshot.read(file);
+
+        assertEquals(Files.size(file), bytes);
+        assertEquals(2, read.size());
+        Product first = read.get(0);
+        assertEquals(1L, first.id);
+        assertEquals("Laptop", first.name);
+        assertEquals("Thin and light", first.description);
+        assertEquals(999.99, first.price);
+        assertEquals(5, first.quantity);
+        assertEquals(3L, first.version);
+        Product second = read.get(1);
+        assertEquals("Kaffeem\u00fchle \u2615", second.name);
+        assertNull(second.description);
+        assertNull(second.price);
+        assertNull(second.quantity);
+        assertNull(second.version);
+    }
+
+    @Test
+    public void testWriteReplacesThePreviousSnapshot() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, List.of(product(1L, "Old", "Desc", 1.0, 1, 0L)));
+        CatalogSnapshot.write(file, List.of());
+
+        assertTrue(CatalogSnapshot.read(file).isEmpty());
+        assertEquals(List.of(file), files(directory));
+    }
+
+    @Test
+    public void testChunkedWriteFillsInTheCount() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.open(file)) {
+            writer.append(List.of(product(1L, "Laptop", "Thin", 999.99, 5, 3L), product(2L, "Mouse", "Wireless", 25.0, 40, 0L)));
+            writer.append(List.of(product(3L, "Desk", "Oak", 250.0, 3, 1L)));
+            writer.commit();
+        }
+
+        List<Product> read = CatalogSnapshot.read(file);
+        assertEquals(List.of(1L, 2L, 3L), read.stream().map(product -> product.id).toList());
+        assertEquals(List.of(file), files(directory));
+    }
+
+    @Test
+    public void testAbandonedWriteKeepsThePreviousSnapshot() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, List.of(product(1L, "Old", "Desc", 1.0, 1, 0L)));
+
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.open(file)) {
+            writer.append(List.of(product(2L, "New", "Desc", 2.0, 2, 0L)));
+        }
+
+        assertEquals("Old", CatalogSnapshot.read(file).get(0).name);
+        assertEquals(List.of(file), files(directory));
+    }
+
+    @Test
+    public void testConcurrentWritesDoNotMix() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        try (CatalogSnapshot.Writer first = CatalogSnapshot.open(file);
+             CatalogSnapshot.Writer second = CatalogSnapshot.open(file)) {
+            first.append(List.of(product(1L, "First", "Desc", 1.0, 1, 0L)));
+            second.append(List.of(product(2L, "Second", "Desc", 2.0, 2, 0L), product(3L, "Second", "Desc", 3.0, 3, 0L)));
+            first.append(List.of(product(4L, "First", "Desc", 4.0, 4, 0L)));
+            first.commit();
+            assertEquals(List.of(1L, 4L), CatalogSnapshot.read(file).stream().map(product -> product.id).toList());
+            second.commit();
+        }
+
+        assertEquals(List.of(2L, 3L), CatalogSnapshot.read(file).stream().map(product -> product.id).toList());
+        assertEquals(List.of(file), files(directory));
+    }
+
+    @Test
+    public void testRejectsForeignFile() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        Files.writeString(file, "id,name\n1,Laptop\n");
+
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(file));
+    }
+
+    @Test
+    public void testRejectsTruncatedFile() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, List.of(product(1L, "Laptop", "Thin and light", 999.99, 5, 3L)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(file));
+    }
+}
@@ -0,0 +1,92 @@
+package com.apibanking.shop.cache;
+
+import com.apibanking.shop.dto.CacheStatistics;
+import com.apibanking.shop.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheTest {
+
+    ProductCache cache;
+
+    @BeforeEach
+    public void setup() {
+        cache = new ProductCache(2, Duration.ofMinutes(10));
+    }
+
+    private static Product productWithId(long id) {
+        Product product = new Product("Product " + id, "Desc", 10.0, 5);
+        product.id = id;
+        return product;
+    }
+
+    @Test
+    public void testHitAndMissCounters() {
+        cache.putIfUnchanged(productWithId(1L), cache.stamp());
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+
+        CacheStatistics stats = cache.statistics();
+        assertEquals(1, stats.hitCount);
+        assertEquals(1, stats.missCount);
+    }
+
+    @Test
+    public void testStaleLoadIsNotPublished() {
+        long stamp = cache.stamp();
+        cache.invalidate(1L);
+
+        cache.putIfUnchanged(productWithId(1L), stamp);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    public void testSizeBoundEvicts() {
+        for (long id = 1; id <= 10; id++) {
+            cache.refresh(productWithId(id));
+        }
+        cache.cleanUp();
+
+        CacheStatistics stats = cache.statistics();
+        assertTrue(stats.size <= 2);
+        assertTrue(stats.evictionCount >= 8);
+    }
+
+    @Test
+    public void testWarmKeepsEntriesAlreadyCached() {
+        Product written = productWithId(1L);
+        written.name = "Written";
+        cache.refresh(written);
+
+        cache.warm(productWithId(1L));
+        assertEquals("Written", cache.get(1L).name);
+    }
+
+    @Test
+    public void testReplaceIfNewerOnlyTakesNewerVersions() {
+        Product cached = productWithId(1L);
+        cached.version = 2L;
+        cache.warm(cached);
+        long stamp = cache.stamp();
+
+        Product older = productWithId(1L);
+        older.version = 1L;
+        cache.replaceIfNewer(older);
+        assertSame(cached, cache.get(1L));
+        assertEquals(stamp, cache.stamp());
+
+        Product newer = productWithId(1L);
+        newer.version = 3L;
+        cache.replaceIfNewer(newer);
+        assertSame(newer, cache.get(1L));
+        assertNotEquals(stamp, cache.stamp());
+
+        cache.replaceIfNewer(productWithId(2L));
+        assertNull(cache.get(2L));
+    }
+}
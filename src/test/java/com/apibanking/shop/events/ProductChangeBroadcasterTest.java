@@ -0,0 +1,116 @@
+package com.apibanking.shop.events;
+
+import com.apibanking.shop.dto.ProductChange;
+import com.apibanking.shop.dto.ProductChangeType;
+import com.apibanking.shop.exception.ChangeHistoryExpiredException;
+import com.apibanking.shop.exception.ValidationException;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductChangeBroadcasterTest {
+
+    ProductChangeBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setup() {
+        broadcaster = new ProductChangeBroadcaster(4, 2);
+    }
+
+    private void publish(long productId) {
+        broadcaster.publish(ProductChangeType.DELETED, productId, null, null);
+    }
+
+    private static List<Long> productIds(AssertSubscriber<ProductChange> subscriber) {
+        return subscriber.getItems().stream().map(change -> change.productId).toList();
+    }
+
+    @Test
+    public void testLiveChangesReachEverySubscriber() {
+        AssertSubscriber<ProductChange> first = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+        AssertSubscriber<ProductChange> second = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        publish(1);
+        publish(2);
+
+        assertEquals(List.of(1L, 2L), productIds(first));
+        assertEquals(List.of(1L, 2L), productIds(second));
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    @Test
+    public void testChangesWaitForDemand() {
+        AssertSubscriber<ProductChange> subscriber = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(1));
+
+        publish(1);
+        publish(2);
+        assertEquals(List.of(1L), productIds(subscriber));
+
+        subscriber.request(1);
+        assertEquals(List.of(1L, 2L), productIds(subscriber));
+    }
+
+    @Test
+    public void testResumeReplaysMissedChanges() {
+        AssertSubscriber<ProductChange> first = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+        publish(1);
+        publish(2);
+        publish(3);
+        String lastSeen = broadcaster.eventId(first.getItems().get(0));
+
+        AssertSubscriber<ProductChange> resumed = broadcaster.changes(lastSeen).subscribe().withSubscriber(AssertSubscriber.create(10));
+        publish(4);
+
+        assertEquals(List.of(2L, 3L, 4L), productIds(resumed));
+    }
+
+    @Test
+    public void testResumeBeyondHistory() {
+        AssertSubscriber<ProductChange> first = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+        for (long id = 1; id <= 6; id++) {
+            publish(id);
+        }
+
+        // Only the last four changes are retained, so resuming after the first leaves a gap
+        assertThrows(ChangeHistoryExpiredException.class, () -> broadcaster.changes(broadcaster.eventId(first.getItems().get(0))));
+        broadcaster.changes(broadcaster.eventId(first.getItems().get(1)));
+    }
+
+    @Test
+    public void testForeignOrMalformedEventId() {
+        assertThrows(ChangeHistoryExpiredException.class, () -> broadcaster.changes("00000000:1"));
+        assertThrows(ValidationException.class, () -> broadcaster.changes("42"));
+    }
+
+    @Test
+    public void testSlowSubscriberIsDropped() {
+        AssertSubscriber<ProductChange> slow = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(1));
+        AssertSubscriber<ProductChange> fast = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        for (long id = 1; id <= 5; id++) {
+            publish(id);
+        }
+        assertEquals(1, broadcaster.subscriberCount());
+
+        // What was queued is still delivered before the failure
+        slow.request(10);
+        assertEquals(List.of(1L, 2L, 3L), productIds(slow));
+        slow.assertFailedWith(BackPressureFailure.class);
+        assertEquals(5, fast.getItems().size());
+    }
+
+    @Test
+    public void testCancelUnsubscribes() {
+        AssertSubscriber<ProductChange> subscriber = broadcaster.changes(null).subscribe().withSubscriber(AssertSubscriber.create(10));
+        subscriber.cancel();
+
+        publish(1);
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+}
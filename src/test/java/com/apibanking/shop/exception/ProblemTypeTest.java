@@ -0,0 +1,43 @@
+package com.apibanking.shop.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemTypeTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testBodyIsAProblemDetail() throws IOException {
+        ProductNotFoundException exception = new ProductNotFoundException(42L);
+
+        JsonNode body = mapper.readTree(exception.problem().body(exception.getMessage()));
+
+        assertEquals("urn:problem-type:shop:product-not-found", body.get("type").asText());
+        assertEquals("Not Found", body.get("title").asText());
+        assertEquals(404, body.get("status").asInt());
+        assertEquals("Product with ID 42 not found.", body.get("detail").asText());
+        assertEquals("Product with ID 42 not found.", body.get("error").asText());
+    }
+
+    @Test
+    public void testDetailIsEscaped() throws IOException {
+        String detail = "Invalid cursor: \"a\\b\"\n\u0001";
+
+        JsonNode body = mapper.readTree(ProblemType.VALIDATION.body(detail));
+
+        assertEquals(detail, body.get("detail").asText());
+        assertEquals(400, body.get("status").asInt());
+    }
+
+    @Test
+    public void testDomainExceptionsHaveNoStackTrace() {
+        assertEquals(0, new ValidationException("Page size must be positive.").getStackTrace().length);
+        assertEquals(0, new ProductNotFoundException(1L).getStackTrace().length);
+    }
+}
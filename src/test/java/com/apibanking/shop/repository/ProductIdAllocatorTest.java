@@ -0,0 +1,96 @@
+package com.apibanking.shop.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductIdAllocatorTest {
+
+    // Stands in for the block table: every reservation moves the high value up by the requested count
+    static class InMemoryAllocator extends ProductIdAllocator {
+
+        final AtomicLong nextId;
+        final AtomicInteger reservations = new AtomicInteger();
+
+        InMemoryAllocator(int blockSize, long existingMaxId) {
+            super(blockSize);
+            this.nextId = new AtomicLong(existingMaxId);
+        }
+
+        @Override
+        protected Uni<Long> reserveBlock(long count) {
+            reservations.incrementAndGet();
+            return Uni.createFrom().item(nextId.addAndGet(count));
+        }
+    }
+
+    @Test
+    public void testIdsComeFromOneBlockUntilItRunsOut() {
+        InMemoryAllocator allocator = new InMemoryAllocator(3, 41);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(allocator.nextId().await().indefinitely());
+        }
+
+        assertEquals(List.of(42L, 43L, 44L, 45L), ids);
+        assertEquals(2, allocator.reservations.get());
+    }
+
+    @Test
+    public void testLargeRequestGetsItsOwnBlock() {
+        InMemoryAllocator allocator = new InMemoryAllocator(3, 0);
+        allocator.nextId().await().indefinitely();
+
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), allocator.nextIds(5).await().indefinitely());
+        // The rest of the first block is still handed out
+        assertEquals(2L, allocator.nextId().await().indefinitely());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRefill() {
+        List<UniEmitter<? super Long>> pending = new ArrayList<>();
+        AtomicLong high = new AtomicLong();
+        ProductIdAllocator allocator = new ProductIdAllocator(10) {
+            @Override
+            protected Uni<Long> reserveBlock(long count) {
+                return Uni.createFrom().emitter(emitter -> pending.add(emitter));
+            }
+        };
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            allocator.nextId().subscribe().with(ids::add);
+        }
+        assertEquals(1, pending.size());
+
+        pending.get(0).complete(high.addAndGet(10));
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), ids);
+    }
+
+    @Test
+    public void testFailedRefillIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        ProductIdAllocator allocator = new ProductIdAllocator(10) {
+            @Override
+            protected Uni<Long> reserveBlock(long count) {
+                return attempts.incrementAndGet() == 1
+                        ? Uni.createFrom().failure(new IllegalStateException("connection lost"))
+                        : Uni.createFrom().item(10L);
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> allocator.nextId().await().indefinitely());
+        assertEquals(1L, allocator.nextId().await().indefinitely());
+    }
+}
@@ -0,0 +1,41 @@
+package com.apibanking.shop.rest;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionFilterTest {
+
+    @Path("/products/")
+    static class Resource {
+
+        @GET
+        public void list() {
+        }
+
+        @GET
+        @Path("check-stock/{id}/{count}")
+        public void checkStock(@PathParam("id") Long id, @PathParam("count") int count) {
+        }
+
+        @POST
+        @Path("/check-stock")
+        public void checkStock(List<Long> lines) {
+        }
+    }
+
+    @Test
+    public void testOverloadsAreSeparateEndpoints() throws NoSuchMethodException {
+        assertEquals("GET /products", AdmissionFilter.endpoint(Resource.class, Resource.class.getMethod("list")));
+        assertEquals("GET /products/check-stock/{id}/{count}",
+                AdmissionFilter.endpoint(Resource.class, Resource.class.getMethod("checkStock", Long.class, int.class)));
+        assertEquals("POST /products/check-stock",
+                AdmissionFilter.endpoint(Resource.class, Resource.class.getMethod("checkStock", List.class)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.apibanking.shop.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * The import route against a real database. The test profile limits import bodies to 64K.
+ */
+@QuarkusTest
+public class CatalogImportRouteTest {
+
+    private static final String HEADER = "name,description,price,quantity\n";
+
+    @Test
+    public void testCsvIsImported() {
+        given().contentType("text/csv")
+                .body(HEADER + "Imported lamp,LED,19.99,4\nImported desk,Oak,250,1\n")
+                .when().post(CatalogImportRoute.PATH)
+                .then().statusCode(200)
+                .body("records", equalTo(2))
+                .body("imported", equalTo(2));
+    }
+
+    @Test
+    public void testBodyOverTheImportLimitIsTooLarge() {
+        String rows = "Bulk lamp,LED,19.99,4\n".repeat(4000);
+
+        given().contentType("text/csv")
+                .body(HEADER + rows)
+                .when().post(CatalogImportRoute.PATH)
+                .then().statusCode(413)
+                .contentType("application/problem+json")
+                .body("type", equalTo("urn:problem-type:shop:payload-too-large"));
+    }
+
+    @Test
+    public void testUnknownFormatIsRejected() {
+        given().contentType("application/json")
+                .body("[]")
+                .when().post(CatalogImportRoute.PATH)
+                .then().statusCode(400)
+                .body("type", equalTo("urn:problem-type:shop:validation-failed"));
+    }
+}
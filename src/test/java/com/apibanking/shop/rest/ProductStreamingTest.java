@@ -0,0 +1,75 @@
+package com.apibanking.shop.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The streaming and export endpoints against a real database. They return {@code Multi}, which Quarkus REST
+ * does not give a session, and the test profile reads two rows per chunk, so every stream here
+ * spans several chunks.
+ */
+@QuarkusTest
+public class ProductStreamingTest {
+
+    private static long create(String name) {
+        return given().contentType(ContentType.JSON)
+                .body(Map.of("name", name, "description", "Streamed", "price", 12.5, "quantity", 4))
+                .when().post("/products")
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    private static List<Long> created(String prefix) {
+        return List.of(create(prefix + " 1"), create(prefix + " 2"), create(prefix + " 3"));
+    }
+
+    @Test
+    public void testStreamReturnsEveryProduct() {
+        List<Long> ids = created("Stream lamp");
+
+        String body = given().accept("application/x-ndjson")
+                .when().get("/products/stream")
+                .then().statusCode(200)
+                .extract().asString();
+
+        for (Long id : ids) {
+            assertTrue(body.contains("\"id\":" + id + ","), body);
+        }
+    }
+
+    @Test
+    public void testExportAsNdjson() {
+        List<Long> ids = created("Export desk");
+
+        String body = given().accept("application/x-ndjson")
+                .when().get("/products/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        for (Long id : ids) {
+            assertTrue(body.contains("\"id\":" + id + ","), body);
+        }
+    }
+
+    @Test
+    public void testExportAsCsv() {
+        List<Long> ids = created("Export chair");
+
+        List<String> lines = given().accept("text/csv")
+                .when().get("/products/export")
+                .then().statusCode(200)
+                .extract().asString().lines().toList();
+
+        assertEquals("id,name,description,price,quantity", lines.get(0));
+        for (Long id : ids) {
+            assertTrue(lines.stream().anyMatch(line -> line.startsWith(id + ",Export chair")), String.join("\n", lines));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.apibanking.shop.rest;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepresentationTagsTest {
+
+    @Test
+    public void testEachRepresentationGetsItsOwnSuffix() {
+        assertEquals("", RepresentationTags.suffix(MediaType.APPLICATION_JSON_TYPE, false));
+        assertEquals("-gzip", RepresentationTags.suffix(MediaType.APPLICATION_JSON_TYPE, true));
+        assertEquals("-cbor", RepresentationTags.suffix(CborProvider.APPLICATION_CBOR_TYPE, false));
+        assertEquals("-cbor-gzip", RepresentationTags.suffix(CborProvider.APPLICATION_CBOR_TYPE, true));
+    }
+
+    @Test
+    public void testPreconditionsAreStrippedToTheVersion() {
+        assertEquals("\"1-3\"", RepresentationTags.versionTags("\"1-3-cbor-gzip\""));
+        assertEquals("\"1-3\", W/\"7-2\"", RepresentationTags.versionTags("\"1-3-gzip\", W/\"7-2-cbor\""));
+        assertEquals("\"1-3\"", RepresentationTags.versionTags("\"1-3\""));
+        assertEquals("*", RepresentationTags.versionTags("*"));
+        assertNull(RepresentationTags.versionTags(null));
+    }
+
+    @Test
+    public void testNotModifiedNegotiatesLikeTheResources() {
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, RepresentationTags.negotiated(List.of()));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, RepresentationTags.negotiated(List.of(MediaType.WILDCARD_TYPE)));
+        assertEquals(CborProvider.APPLICATION_CBOR_TYPE,
+                RepresentationTags.negotiated(List.of(CborProvider.APPLICATION_CBOR_TYPE, MediaType.APPLICATION_JSON_TYPE)));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE,
+                RepresentationTags.negotiated(List.of(MediaType.TEXT_HTML_TYPE, MediaType.APPLICATION_JSON_TYPE)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.apibanking.shop.rest;
+
+import com.apibanking.shop.exception.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestBodyStreamTest {
+
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private final AtomicInteger pauses = new AtomicInteger();
+
+    private RequestBodyStream stream(long limit, int maxQueued) {
+        return new RequestBodyStream(limit, maxQueued,
+                () -> {
+                    paused.set(true);
+                    pauses.incrementAndGet();
+                },
+                () -> paused.set(false));
+    }
+
+    @Test
+    public void testBodyIsReadInOrderAcrossThreads() throws Exception {
+        RequestBodyStream body = stream(Long.MAX_VALUE, 4);
+        // Stands in for the event loop, which only delivers while the request is not paused
+        Thread loop = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                while (paused.get()) {
+                    Thread.onSpinWait();
+                }
+                body.offer(new byte[]{(byte) i, (byte) (i >> 8)});
+            }
+            body.end();
+        });
+        loop.start();
+
+        byte[] read = body.readAllBytes();
+        loop.join();
+
+        assertEquals(2000, read.length);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals((byte) i, read[2 * i]);
+            assertEquals((byte) (i >> 8), read[2 * i + 1]);
+        }
+        assertFalse(paused.get());
+    }
+
+    @Test
+    public void testRequestIsPausedWhileTheReaderIsBehind() throws IOException {
+        RequestBodyStream body = stream(Long.MAX_VALUE, 4);
+        for (int i = 0; i < 4; i++) {
+            body.offer(new byte[]{1});
+        }
+        assertTrue(paused.get());
+
+        body.read(new byte[1], 0, 1);
+        assertTrue(paused.get());
+        body.read(new byte[1], 0, 1);
+        assertFalse(paused.get());
+        assertEquals(1, pauses.get());
+    }
+
+    @Test
+    public void testBodyOverTheLimitFailsTheReader() throws IOException {
+        RequestBodyStream body = stream(10, 16);
+        body.offer(new byte[6]);
+        body.offer(new byte[6]);
+        body.end();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(PayloadTooLargeException.class, () -> body.transferTo(out));
+        assertTrue(paused.get());
+    }
+}
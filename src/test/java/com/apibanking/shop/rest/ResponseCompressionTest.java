@@ -0,0 +1,51 @@
+package com.apibanking.shop.rest;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressionTest {
+
+    @Test
+    public void testAcceptEncodingNegotiation() {
+        assertTrue(ResponseCompression.acceptsGzip("gzip"));
+        assertTrue(ResponseCompression.acceptsGzip("br, GZIP;q=0.5"));
+        assertTrue(ResponseCompression.acceptsGzip("*"));
+        assertTrue(ResponseCompression.acceptsGzip("*;q=0, gzip"));
+        assertFalse(ResponseCompression.acceptsGzip(null));
+        assertFalse(ResponseCompression.acceptsGzip("identity"));
+        assertFalse(ResponseCompression.acceptsGzip("gzip;q=0"));
+        assertFalse(ResponseCompression.acceptsGzip("gzip;q=0.0, *"));
+    }
+
+    @Test
+    public void testOnlyJsonAndCborAreCompressed() {
+        assertTrue(ResponseCompression.compressible(MediaType.APPLICATION_JSON_TYPE));
+        assertTrue(ResponseCompression.compressible(MediaType.valueOf("application/cbor")));
+        assertFalse(ResponseCompression.compressible(MediaType.SERVER_SENT_EVENTS_TYPE));
+        assertFalse(ResponseCompression.compressible(MediaType.valueOf("application/x-ndjson")));
+        assertFalse(ResponseCompression.compressible(null));
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] json = "[{\"id\":1,\"name\":\"Laptop\"},{\"id\":2,\"name\":\"Laptop\"}]".repeat(50).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(json);
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+
+        ResponseCompression.gzip(body, wire, 6);
+
+        assertTrue(wire.size() < json.length / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(wire.toByteArray()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+    }
+}
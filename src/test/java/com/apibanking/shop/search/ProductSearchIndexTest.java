@@ -0,0 +1,94 @@
+package com.apibanking.shop.search;
+
+import com.apibanking.shop.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    ProductSearchIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new ProductSearchIndex();
+        index.put(product(1L, "Laptop Pro Max", "High-performance laptop with advanced features"));
+        index.put(product(2L, "Laptop Sleeve", "Neoprene sleeve"));
+        index.put(product(3L, "Desk Lamp", "LED lamp for a laptop desk"));
+    }
+
+    private static Product product(long id, String name, String description) {
+        Product product = new Product(name, description, 10.0, 5);
+        product.id = id;
+        return product;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(p -> p.id).toList();
+    }
+
+    @Test
+    public void testPrefixMatchAndRanking() {
+        // Name plus description beats name only, which beats description only
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("lap", 0, 10)));
+    }
+
+    @Test
+    public void testAllTokensMustMatch() {
+        assertEquals(List.of(2L), ids(index.search("laptop sle", 0, 10)));
+    }
+
+    @Test
+    public void testPaginationReturnsOneExtraHit() {
+        assertEquals(List.of(1L, 2L), ids(index.search("laptop", 0, 1)));
+        assertEquals(List.of(3L), ids(index.search("laptop", 2, 1)));
+    }
+
+    @Test
+    public void testUpdateReplacesTerms() {
+        index.put(product(2L, "Tablet Sleeve", "Neoprene sleeve"));
+
+        assertEquals(List.of(1L, 3L), ids(index.search("laptop", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("tablet", 0, 10)));
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(1L);
+
+        assertEquals(2, index.size());
+        assertTrue(index.search("max", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testAdjustQuantity() {
+        index.adjustQuantity(1L, -2);
+
+        assertEquals(3, index.search("max", 0, 10).get(0).quantity);
+    }
+
+    @Test
+    public void testPutIfNewerKeepsNewerAndLocallyWrittenProducts() {
+        Product current = product(1L, "Laptop Pro Max", "High-performance laptop with advanced features");
+        current.version = 5L;
+        index.put(current);
+        index.beginReconcile();
+        index.put(product(2L, "Laptop Bag", "Neoprene sleeve"));
+        index.remove(3L);
+
+        Product stale = product(1L, "Old Laptop", "Read from a lagging replica");
+        stale.version = 4L;
+        index.putIfNewer(stale);
+        index.putIfNewer(product(2L, "Laptop Sleeve", "Neoprene sleeve"));
+        index.putIfNewer(product(3L, "Desk Lamp", "LED lamp for a laptop desk"));
+        index.putIfNewer(product(4L, "Laptop Stand", "Aluminium"));
+        index.endReconcile();
+
+        assertEquals(List.of(1L, 2L, 4L), ids(index.search("laptop", 0, 10)).stream().sorted().toList());
+        assertTrue(index.search("old", 0, 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("bag", 0, 10)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogCsvTest {
+
+    private static Product product(Long id, String name, String description, Double price, Integer quantity) {
+        Product product = new Product();
+        product.id = id;
+        product.name = name;
+        product.description = description;
+        product.price = price;
+        product.quantity = quantity;
+        return product;
+    }
+
+    @Test
+    public void testEncodeQuotesOnlyWhatNeedsIt() {
+        byte[] rows = CatalogCsv.encode(List.of(
+                product(1L, "Desk", "Oak, 2m", 10_000_000.0, 3),
+                product(2L, "Lamp", "The \"bright\" one\nwith a plug", 19.5, null)));
+
+        assertEquals("1,Desk,\"Oak, 2m\",10000000,3\n"
+                        + "2,Lamp,\"The \"\"bright\"\" one\nwith a plug\",19.5,",
+                new String(rows, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodedRowsReadBack() throws IOException {
+        List<Product> products = List.of(
+                product(1L, "Desk", "Oak, 2m", 250.0, 3),
+                product(2L, "Lamp", "The \"bright\" one\r\nwith a plug", 19.5, 0),
+                product(3L, "Chair", "Plain", 49.0, 12));
+        String csv = CatalogCsv.HEADER + "\n" + new String(CatalogCsv.encode(products), StandardCharsets.UTF_8) + "\n";
+
+        CatalogCsv.RecordReader reader = new CatalogCsv.RecordReader(new StringReader(csv));
+        for (Product expected : products) {
+            CatalogTransfer.Parsed record = reader.next();
+            assertNull(record.error());
+            assertNull(record.product().id);
+            assertEquals(expected.name, record.product().name);
+            assertEquals(expected.description, record.product().description);
+            assertEquals(expected.price, record.product().price);
+            assertEquals(expected.quantity, record.product().quantity);
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testRecordsStartOnTheirLine() throws IOException {
+        String csv = "name,description,price,quantity\r\n"
+                + "Lamp,\"Two\nlines\",19.5,1\r\n"
+                + "\r\n"
+                + "Chair,Plain,cheap,12\r\n";
+
+        CatalogCsv.RecordReader reader = new CatalogCsv.RecordReader(new StringReader(csv));
+
+        assertEquals(2, reader.next().line());
+        CatalogTransfer.Parsed invalid = reader.next();
+        assertEquals(5, invalid.line());
+        assertEquals("Invalid price: cheap", invalid.error());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testColumnsAreMatchedByName() throws IOException {
+        String csv = "\uFEFFQuantity,Price,Version,Name,Description\n7,1.25,3,Pen,Blue ink";
+
+        CatalogTransfer.Parsed record = new CatalogCsv.RecordReader(new StringReader(csv)).next();
+
+        assertEquals("Pen", record.product().name);
+        assertEquals("Blue ink", record.product().description);
+        assertEquals(1.25, record.product().price);
+        assertEquals(7, record.product().quantity);
+    }
+
+    @Test
+    public void testHeaderWithoutRequiredColumnsIsRejected() {
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> new CatalogCsv.RecordReader(new StringReader("id,name,price\n1,Pen,1.25\n")));
+
+        assertEquals("CSV header is missing the columns description, quantity.", exception.getMessage());
+    }
+}
@@ -0,0 +1,154 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.dto.ImportError;
+import com.apibanking.shop.dto.ImportReport;
+import com.apibanking.shop.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Uni;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogTransferTest {
+
+    private final TreeMap<Long, Product> catalog = new TreeMap<>();
+    private final List<List<Product>> written = new ArrayList<>();
+    private int failingChunk = -1;
+    private CatalogTransfer transfer;
+
+    @BeforeEach
+    public void setup() {
+        // Serves the catalog from a map instead of the database
+        ProductService productService = new ProductService() {
+            @Override
+            protected Uni<List<Product>> listProductsAfter(long afterId, int limit) {
+                return Uni.createFrom().item(catalog.tailMap(afterId, false).values().stream().limit(limit).toList());
+            }
+        };
+        productService.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        productService.streamChunkSize = 2;
+
+        transfer = new CatalogTransfer() {
+            @Override
+            protected void writeChunk(List<Product> products) {
+                if (written.size() == failingChunk) {
+                    written.add(List.of());
+                    throw new IllegalStateException("Deadlock found when trying to get lock");
+                }
+                written.add(List.copyOf(products));
+            }
+        };
+        transfer.productService = productService;
+        transfer.mapper = new ObjectMapper();
+        transfer.chunkSize = 2;
+        transfer.maxErrors = 10;
+        transfer.init();
+    }
+
+    private void addToCatalog(long id, String name, String description, double price, int quantity) {
+        Product product = new Product(name, description, price, quantity);
+        product.id = id;
+        product.version = 0L;
+        catalog.put(id, product);
+    }
+
+    private ImportReport importBody(String body, CatalogFormat format) throws IOException {
+        return transfer.importCatalog(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    // Joins the streamed blocks the way the response does, with a line break after each
+    private String export(CatalogFormat format) {
+        StringBuilder body = new StringBuilder();
+        transfer.export(format).subscribe().asIterable()
+                .forEach(block -> body.append(new String(block, StandardCharsets.UTF_8)).append('\n'));
+        return body.toString();
+    }
+
+    @Test
+    public void testImportValidatesEachRecordAndWritesInChunks() throws IOException {
+        String body = """
+                {"name":"Desk","description":"Oak","price":250.0,"quantity":3}
+                {"name":"Lamp","description":"Brass","price":-1.0,"quantity":1}
+
+                {"name":"Chair","description":"Plain","price":49.0,"quantity":12
+                {"name":"Pen","description":"Blue ink","price":1.25,"quantity":7}
+                {"name":"Mug","description":"Stoneware","price":9.0,"quantity":40}
+                """;
+
+        ImportReport report = importBody(body, CatalogFormat.NDJSON);
+
+        assertEquals(5, report.records);
+        assertEquals(3, report.imported);
+        assertEquals(2, report.failed);
+        assertEquals(List.of(new ImportError(2, "Price must be non-negative")), report.errors.subList(0, 1));
+        assertEquals(4, report.errors.get(1).line);
+        assertTrue(report.errors.get(1).error.startsWith("Malformed JSON"));
+        assertEquals(List.of(List.of("Desk", "Pen"), List.of("Mug")),
+                written.stream().map(chunk -> chunk.stream().map(product -> product.name).toList()).toList());
+    }
+
+    @Test
+    public void testFailedChunkIsReportedPerRecord() throws IOException {
+        failingChunk = 1;
+        String body = "name,description,price,quantity\n"
+                + "Desk,Oak,250,3\nLamp,Brass,19.5,1\nChair,Plain,49,12\nPen,Blue ink,1.25,7\nMug,Stoneware,9,40\n";
+
+        ImportReport report = importBody(body, CatalogFormat.CSV);
+
+        assertEquals(3, report.imported);
+        assertEquals(List.of(4L, 5L), report.errors.stream().map(error -> error.line).toList());
+        assertEquals("Deadlock found when trying to get lock", report.errors.get(0).error);
+    }
+
+    @Test
+    public void testErrorsBeyondTheLimitAreOnlyCounted() throws IOException {
+        transfer.maxErrors = 1;
+
+        ImportReport report = importBody("name,description,price,quantity\n,,,\n,,,\n,,,\n", CatalogFormat.CSV);
+
+        assertEquals(3, report.failed);
+        assertEquals(1, report.errors.size());
+        assertTrue(report.errorsTruncated);
+    }
+
+    @Test
+    public void testNdjsonExportHasOneProductPerLine() throws IOException {
+        addToCatalog(1, "Desk", "Oak", 250.0, 3);
+        addToCatalog(2, "Lamp", "Brass", 19.5, 1);
+        addToCatalog(5, "Pen", "Blue ink", 1.25, 7);
+
+        String[] lines = export(CatalogFormat.NDJSON).split("\n");
+
+        assertEquals(3, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("Pen", mapper.readValue(lines[2], Product.class).name);
+        assertEquals(5L, mapper.readValue(lines[2], Product.class).id);
+    }
+
+    @Test
+    public void testCsvExportImportsBack() throws IOException {
+        addToCatalog(1, "Desk", "Oak, 2m", 250.0, 3);
+        addToCatalog(2, "Lamp", "The \"bright\" one\nwith a plug", 19.5, 1);
+        addToCatalog(3, "Pen", "Blue ink", 1.25, 7);
+
+        ImportReport report = importBody(export(CatalogFormat.CSV), CatalogFormat.CSV);
+
+        assertEquals(3, report.imported);
+        List<Product> imported = written.stream().flatMap(List::stream).toList();
+        for (Product product : imported) {
+            Product original = catalog.values().stream().filter(p -> p.name.equals(product.name)).findFirst().orElseThrow();
+            assertEquals(original.description, product.description);
+            assertEquals(original.price, product.price);
+            assertEquals(original.quantity, product.quantity);
+        }
+    }
+}
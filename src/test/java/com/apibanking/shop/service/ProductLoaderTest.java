@@ -0,0 +1,117 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.entity.Product;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductLoaderTest {
+
+    // Records the IDs of every query and answers it with a product for each ID up to 100
+    static class RecordingQuery implements Function<List<Long>, Uni<List<Product>>> {
+
+        final List<List<Long>> queries = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Uni<List<Product>> apply(List<Long> ids) {
+            queries.add(ids);
+            List<Product> found = new ArrayList<>();
+            for (Long id : ids) {
+                if (id <= 100) {
+                    found.add(product(id));
+                }
+            }
+            return Uni.createFrom().item(found);
+        }
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.id = id;
+        return product;
+    }
+
+    @Test
+    public void testConcurrentLookupsOfOneIdShareAQuery() {
+        List<UniEmitter<? super List<Product>>> pending = new ArrayList<>();
+        List<List<Long>> queries = new ArrayList<>();
+        // A batch of two is closed by the second distinct ID, without waiting for the window
+        ProductLoader loader = new ProductLoader(Duration.ofHours(1), 2);
+        Function<List<Long>, Uni<List<Product>>> query = ids -> {
+            queries.add(ids);
+            return Uni.createFrom().emitter(pending::add);
+        };
+
+        List<Product> loaded = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            loader.load(1L, query).subscribe().with(loaded::add);
+        }
+        loader.load(2L, query).subscribe().with(loaded::add);
+
+        assertEquals(List.of(List.of(1L, 2L)), queries);
+        pending.get(0).complete(List.of(product(1L), product(2L)));
+        assertEquals(4, loaded.size());
+        assertSame(loaded.get(0), loaded.get(2));
+        assertEquals(0, loader.inFlight());
+    }
+
+    @Test
+    public void testMissesWithinTheWindowAreBatched() {
+        RecordingQuery query = new RecordingQuery();
+        ProductLoader loader = new ProductLoader(Duration.ofMillis(200), 100);
+
+        List<Product> products = Uni.join()
+                .all(loader.load(3L, query), loader.load(1L, query), loader.load(2L, query))
+                .andFailFast()
+                .await().atMost(Duration.ofSeconds(5));
+
+        assertEquals(List.of(List.of(3L, 1L, 2L)), query.queries);
+        assertEquals(List.of(3L, 1L, 2L), products.stream().map(product -> product.id).toList());
+    }
+
+    @Test
+    public void testMissingIdLoadsAsNull() {
+        RecordingQuery query = new RecordingQuery();
+        ProductLoader loader = new ProductLoader(Duration.ZERO, 100);
+
+        assertNull(loader.load(404L, query).await().atMost(Duration.ofSeconds(5)));
+        assertEquals(1L, loader.load(1L, query).await().atMost(Duration.ofSeconds(5)).id);
+    }
+
+    @Test
+    public void testFailedQueryFailsEveryWaiterAndIsNotShared() {
+        RecordingQuery query = new RecordingQuery();
+        ProductLoader loader = new ProductLoader(Duration.ZERO, 100);
+
+        assertThrows(IllegalStateException.class, () -> loader
+                .load(1L, ids -> Uni.createFrom().failure(new IllegalStateException("connection lost")))
+                .await().atMost(Duration.ofSeconds(5)));
+
+        assertEquals(0, loader.inFlight());
+        assertEquals(1L, loader.load(1L, query).await().atMost(Duration.ofSeconds(5)).id);
+    }
+
+    @Test
+    public void testForgottenLoadIsNotJoined() {
+        List<UniEmitter<? super List<Product>>> pending = new ArrayList<>();
+        ProductLoader loader = new ProductLoader(Duration.ofHours(1), 1);
+        Function<List<Long>, Uni<List<Product>>> query = ids -> Uni.createFrom().emitter(pending::add);
+
+        loader.load(1L, query).subscribe().with(product -> { });
+        loader.forget(1L);
+        loader.load(1L, query).subscribe().with(product -> { });
+
+        assertEquals(2, pending.size());
+    }
+}
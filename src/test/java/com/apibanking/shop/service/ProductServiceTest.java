@@ -1,33 +1,113 @@
 package com.apibanking.shop.service;
 
+import com.apibanking.shop.cache.ProductCache;
+import com.apibanking.shop.cache.ProductVersions;
+import com.apibanking.shop.dto.BatchResult;
+import com.apibanking.shop.dto.PriceSortParams;
+import com.apibanking.shop.dto.ProductChange;
+import com.apibanking.shop.dto.ProductChangeType;
+import com.apibanking.shop.dto.ProductField;
+import com.apibanking.shop.dto.ProductView;
+import com.apibanking.shop.dto.ProductPage;
+import com.apibanking.shop.dto.StockCheckLine;
+import com.apibanking.shop.dto.StockCheckResult;
+import com.apibanking.shop.dto.StockLevel;
 import com.apibanking.shop.entity.Product;
+import com.apibanking.shop.events.ProductChangeBroadcaster;
+import com.apibanking.shop.exception.PayloadTooLargeException;
+import com.apibanking.shop.exception.ProductModifiedException;
 import com.apibanking.shop.exception.ProductNotFoundException;
 import com.apibanking.shop.exception.ValidationException;
+import com.apibanking.shop.metrics.ProductMetrics;
+import com.apibanking.shop.repository.ProductIdAllocator;
+import com.apibanking.shop.repository.ProductReplicaReader;
+import com.apibanking.shop.search.ProductSearchIndex;
+import com.apibanking.shop.stats.CatalogStatistics;
+import com.apibanking.shop.stock.StockCounter;
+import com.apibanking.shop.stock.StockCounterEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import jakarta.validation.Validation;
+import jakarta.ws.rs.core.EntityTag;
 import org.junit.jupiter.api.*;
 import org.mockito.MockedStatic;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ProductServiceTest {
 
     ProductService productService;
+    SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     public void setup() {
         productService = new ProductService();
+        meterRegistry = new SimpleMeterRegistry();
+        productService.productCache = new ProductCache(100, Duration.ofMinutes(10));
+        productService.searchIndex = new ProductSearchIndex();
+        productService.productVersions = new ProductVersions();
+        productService.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        productService.metrics = new ProductMetrics(meterRegistry);
+        productService.replicaRouting = new ReplicaRouting(false, Duration.ofSeconds(2), Duration.ofSeconds(5), productService.metrics);
+        productService.changeBroadcaster = new ProductChangeBroadcaster(100, 10);
+        productService.stockCounters = new StockCounterEngine(Optional.empty(), 4);
+        AtomicLong reservedIds = new AtomicLong();
+        productService.idAllocator = new ProductIdAllocator(10) {
+            @Override
+            protected Uni<Long> reserveBlock(long count) {
+                return Uni.createFrom().item(reservedIds.addAndGet(count));
+            }
+        };
+        productService.productLoader = new ProductLoader(Duration.ZERO, 100);
+        productService.catalogStatistics = new CatalogStatistics();
+        productService.lowStockThreshold = 10;
+        productService.batchChunkSize = 2;
+        productService.maxStockCheckLines = 10;
+        productService.maxBatchItems = 10;
+        productService.defaultPageSize = 2;
+        productService.maxPageSize = 10;
+        productService.streamChunkSize = 2;
+    }
+
+    // Runs the transactional work instead of replacing it, so the batch bookkeeping inside it executes
+    @SuppressWarnings("unchecked")
+    private static void runTransactions(MockedStatic<Panache> panache) {
+        panache.when(() -> Panache.withTransaction(any()))
+                .thenAnswer(invocation -> ((Supplier<Uni<?>>) invocation.getArgument(0)).get());
+    }
+
+    private static Product productWithId(long id) {
+        Product product = new Product();
+        product.id = id;
+        return product;
     }
 
     @Test
     public void testCreateProduct_success() {
-        Product product = new Product();
-        product.price = 10.0;
-        product.quantity = 5;
+        Product product = new Product("Laptop", "Desc", 10.0, 5);
+        product.id = 1L;
 
         try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
             panache.when(() -> Panache.withTransaction(any()))
@@ -38,17 +118,83 @@ public class ProductServiceTest {
         }
     }
 
+    @Test
+    public void testCreateProduct_clientVersionIsClearedBeforePersist() {
+        Product product = new Product("Desk", "Oak", 250.0, 3);
+        product.id = 99L;
+        product.version = 4L;
+        AtomicReference<Long> persistedVersion = new AtomicReference<>(-1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any())).thenAnswer(invocation -> {
+                persistedVersion.set(product.version);
+                return Uni.createFrom().item(product);
+            });
+
+            productService.create(product).await().indefinitely();
+        }
+
+        assertNull(persistedVersion.get());
+        assertNotEquals(99L, product.id);
+    }
+
+    @Test
+    public void testCreateBatch_clientVersionsAreClearedBeforePersist() {
+        ProductService spyService = spy(productService);
+        List<Long> persistedVersions = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Product> entities = invocation.getArgument(0);
+            entities.forEach(entity -> persistedVersions.add(entity.version));
+            return Uni.createFrom().voidItem();
+        }).when(spyService).persistAll(any());
+        doReturn(Uni.createFrom().voidItem()).when(spyService).clearSession();
+        Product product = new Product("A", "Desc", 1.0, 1);
+        product.version = 2L;
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertEquals(1, spyService.createBatch(List.of(product)).await().indefinitely().succeeded);
+        }
+
+        assertEquals(Collections.singletonList(null), persistedVersions);
+    }
+
+    @Test
+    public void testValidationFailuresAreReturnedThroughTheUni() {
+        Product product = new Product("A", "Desc", -1.0, 1);
+
+        Uni<Product> created = productService.create(product);
+        Uni<Boolean> reserved = productService.reserveStock(1L, 0);
+        Uni<ProductPage<Product>> page = productService.getPage("abc", 2);
+
+        created.subscribe().withSubscriber(UniAssertSubscriber.create()).assertFailedWith(ValidationException.class);
+        reserved.subscribe().withSubscriber(UniAssertSubscriber.create()).assertFailedWith(ValidationException.class);
+        page.subscribe().withSubscriber(UniAssertSubscriber.create()).assertFailedWith(ValidationException.class);
+    }
+
     @Test
     public void testCreateProduct_validationFailure() {
-        Product product = new Product();
-        product.price = -1d;
-        product.quantity = 1;
+        Product product = new Product("Laptop", "Desc", -1d, 1);
 
         ValidationException ex = assertThrows(ValidationException.class, () -> {
             productService.create(product).await().indefinitely();
         });
 
-        assertEquals("Product price and quantity must be non-negative.", ex.getMessage());
+        assertEquals("Price must be non-negative", ex.getMessage());
+    }
+
+    @Test
+    public void testCreateAndUpdate_missingPriceOrQuantityFailTheUni() {
+        Product noPrice = new Product("Laptop", "Desc", null, 1);
+        Product noQuantity = new Product("Laptop", "Desc", 10.0, null);
+
+        productService.create(noPrice).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(ValidationException.class, "Price cannot be null");
+        productService.update(1L, noQuantity).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(ValidationException.class, "Quantity cannot be null");
+        productService.create(null).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(ValidationException.class, "Product is required.");
     }
 
     @Test
@@ -153,14 +299,743 @@ public class ProductServiceTest {
         });
     }
     @Test
-    public void testSortByPrice() {
-        List<Product> sorted = List.of(new Product(), new Product());
+    public void testSortByPrice_defaultsToFirstPageOfWholeCatalog() {
+        List<Product> sorted = List.of(productWithId(2L), productWithId(1L));
 
         ProductService spyService = spy(productService);
         doReturn(Uni.createFrom().item(sorted))
-                .when(spyService).listProductsSortedByPrice();
+                .when(spyService).listProductsByPrice(any(), any(), any(), anyInt());
 
-        List<Product> result = spyService.sortByPrice().await().indefinitely();
-        assertEquals(2, result.size());
+        ProductPage<Product> page = spyService.sortByPrice(new PriceSortParams()).await().indefinitely();
+        assertEquals(2, page.items.size());
+        assertNull(page.nextCursor);
+        verify(spyService).listProductsByPrice(eq(""), any(Parameters.class), any(Sort.class), eq(3));
+    }
+
+    @Test
+    public void testGetPage_hasNextCursor() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(productWithId(1L), productWithId(2L), productWithId(3L))))
+                .when(spyService).listProductsAfter(0L, 3);
+
+        ProductPage<Product> page = spyService.getPage(null, null).await().indefinitely();
+        assertEquals(2, page.items.size());
+        assertEquals("2", page.nextCursor);
+    }
+
+    @Test
+    public void testGetPage_lastPage() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(productWithId(3L))))
+                .when(spyService).listProductsAfter(2L, 3);
+
+        ProductPage<Product> page = spyService.getPage("2", 2).await().indefinitely();
+        assertEquals(1, page.items.size());
+        assertNull(page.nextCursor);
+    }
+
+    @Test
+    public void testGetPage_invalidCursor() {
+        assertThrows(ValidationException.class, () -> productService.getPage("abc", 2).await().indefinitely());
+    }
+
+    @Test
+    public void testStreamAll_walksChunksInIdOrder() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(productWithId(1L), productWithId(2L))))
+                .when(spyService).listProductsAfter(0L, 2);
+        doReturn(Uni.createFrom().item(List.of(productWithId(5L))))
+                .when(spyService).listProductsAfter(2L, 2);
+        doReturn(Uni.createFrom().item(List.<Product>of()))
+                .when(spyService).listProductsAfter(5L, 2);
+
+        List<Product> result = spyService.streamAll().collect().asList().await().indefinitely();
+        assertEquals(List.of(1L, 2L, 5L), result.stream().map(p -> p.id).toList());
+    }
+
+    @Test
+    public void testGetById_servedFromCacheOnSecondCall() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(productWithId(1L)))
+                .when(spyService).loadProductById(1L);
+
+        spyService.getById(1L).await().indefinitely();
+        Product result = spyService.getById(1L).await().indefinitely();
+
+        assertEquals(1L, result.id);
+        verify(spyService, times(1)).loadProductById(1L);
+        assertEquals(1, spyService.cacheStatistics().hitCount);
+    }
+
+    @Test
+    public void testUpdate_refreshesCache() {
+        Product updated = new Product("Laptop", "Desc", 20.0, 3);
+        updated.id = 1L;
+        productService.productCache.refresh(productWithId(1L));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(updated));
+
+            productService.update(1L, updated).await().indefinitely();
+        }
+
+        assertSame(updated, productService.productCache.get(1L));
+    }
+
+    @Test
+    public void testWritesPublishChanges() {
+        AssertSubscriber<ProductChange> subscriber = productService.changes(null)
+                .subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(1));
+            productService.reserveStock(1L, 2).await().indefinitely();
+        }
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(true));
+            productService.delete(1L).await().indefinitely();
+        }
+
+        List<ProductChange> changes = subscriber.getItems();
+        assertEquals(2, changes.size());
+        assertEquals(ProductChangeType.STOCK, changes.get(0).type);
+        assertEquals(-2, changes.get(0).quantityDelta);
+        assertEquals(ProductChangeType.DELETED, changes.get(1).type);
+        assertEquals(1L, changes.get(1).productId);
+        assertEquals(changes.get(0).sequence + 1, changes.get(1).sequence);
+    }
+
+    @Test
+    public void testDelete_invalidatesCache() {
+        productService.productCache.refresh(productWithId(1L));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(true));
+
+            productService.delete(1L).await().indefinitely();
+        }
+
+        assertNull(productService.productCache.get(1L));
+    }
+
+    @Test
+    public void testReserveStock_success() {
+        productService.productCache.refresh(productWithId(1L));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(1));
+
+            assertTrue(productService.reserveStock(1L, 2).await().indefinitely());
+        }
+
+        assertNull(productService.productCache.get(1L));
+    }
+
+    @Test
+    public void testReserveStock_insufficientStock() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(true)).when(spyService).productExists(1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(0));
+
+            assertFalse(spyService.reserveStock(1L, 2).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testReserveStock_notFound() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(false)).when(spyService).productExists(1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(0));
+
+            assertThrows(ProductNotFoundException.class, () -> spyService.reserveStock(1L, 2).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testReserveStock_invalidCount() {
+        assertThrows(ValidationException.class, () -> productService.reserveStock(1L, 0).await().indefinitely());
+    }
+
+    @Test
+    public void testReserveStock_hotSkuUsesCounter() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(5)).when(spyService).loadQuantity(1L);
+
+        assertTrue(spyService.reserveStock(1L, 3).await().indefinitely());
+        assertFalse(spyService.reserveStock(1L, 3).await().indefinitely());
+        assertTrue(spyService.releaseStock(1L, 1).await().indefinitely());
+        assertTrue(spyService.checkStock(1L, 3).await().indefinitely());
+
+        verify(spyService, times(1)).loadQuantity(1L);
+        verify(spyService, never()).reserveQuantity(any(), anyInt());
+        verify(spyService, never()).releaseQuantity(any(), anyInt());
+    }
+
+    @Test
+    public void testReserveStock_hotSkuNotFound() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().nullItem()).when(spyService).loadQuantity(1L);
+
+        assertThrows(ProductNotFoundException.class, () -> spyService.reserveStock(1L, 1).await().indefinitely());
+        assertNull(spyService.stockCounters.counter(1L));
+    }
+
+    @Test
+    public void testFlushStockCounters_writesNetChangeOnce() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(10)).when(spyService).loadQuantity(1L);
+        doReturn(Uni.createFrom().item(Set.of(1L))).when(spyService).applyStockDeltas(Map.of(1L, -3L));
+        spyService.reserveStock(1L, 2).await().indefinitely();
+        spyService.reserveStock(1L, 2).await().indefinitely();
+        spyService.releaseStock(1L, 1).await().indefinitely();
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertEquals(1, spyService.flushStockCounters().await().indefinitely());
+            assertEquals(0, spyService.flushStockCounters().await().indefinitely());
+        }
+
+        verify(spyService, times(1)).applyStockDeltas(any());
+        assertEquals(7, spyService.stockCounters.counter(1L).durable());
+    }
+
+    @Test
+    public void testFlushStockCounters_failureKeepsChangePending() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(10)).when(spyService).loadQuantity(1L);
+        doReturn(Uni.createFrom().failure(new IllegalStateException("database down")))
+                .doReturn(Uni.createFrom().item(Set.of(1L)))
+                .when(spyService).applyStockDeltas(Map.of(1L, -2L));
+        spyService.reserveStock(1L, 2).await().indefinitely();
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertThrows(IllegalStateException.class, () -> spyService.flushStockCounters().await().indefinitely());
+            assertEquals(1, spyService.flushStockCounters().await().indefinitely());
+        }
+
+        assertEquals(8, spyService.stockCounters.counter(1L).durable());
+    }
+
+    @Test
+    public void testFlushStockCounters_unappliedChangeStaysPending() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        // Loaded at 10, then the row was lowered to 2 behind the counter's back
+        doReturn(Uni.createFrom().item(10)).doReturn(Uni.createFrom().item(2)).when(spyService).loadQuantity(1L);
+        doReturn(Uni.createFrom().item(Set.of()))
+                .doReturn(Uni.createFrom().item(Set.of(1L)))
+                .when(spyService).applyStockDeltas(Map.of(1L, -4L));
+        assertTrue(spyService.reserveStock(1L, 4).await().indefinitely());
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertEquals(0, spyService.flushStockCounters().await().indefinitely());
+            StockCounter counter = spyService.stockCounters.counter(1L);
+            assertEquals(2, counter.durable());
+            assertEquals(0, counter.available());
+            assertFalse(spyService.reserveStock(1L, 1).await().indefinitely());
+
+            // Restocked by a PUT: the pending change now fits
+            counter.rebase(10);
+            assertEquals(1, spyService.flushStockCounters().await().indefinitely());
+            assertEquals(6, counter.durable());
+            assertEquals(6, counter.available());
+        }
+
+        verify(spyService, times(2)).applyStockDeltas(Map.of(1L, -4L));
+    }
+
+    @Test
+    public void testFlushStockCounters_deletedProductDropsItsCounter() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(10)).doReturn(Uni.createFrom().nullItem()).when(spyService).loadQuantity(1L);
+        doReturn(Uni.createFrom().item(Set.of())).when(spyService).applyStockDeltas(Map.of(1L, -1L));
+        spyService.reserveStock(1L, 1).await().indefinitely();
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertEquals(0, spyService.flushStockCounters().await().indefinitely());
+        }
+
+        assertNull(spyService.stockCounters.counter(1L));
+    }
+
+    @Test
+    public void testReleaseStock_notFound() {
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(0));
+
+            assertThrows(ProductNotFoundException.class, () -> productService.releaseStock(1L, 2).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testCreateBatch_reportsInvalidItemsAndPersistsInChunks() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().voidItem()).when(spyService).persistAll(any());
+        doReturn(Uni.createFrom().voidItem()).when(spyService).clearSession();
+
+        List<Product> batch = List.of(
+                new Product("A", "Desc", 1.0, 1),
+                new Product("", "Desc", 1.0, 1),
+                new Product("B", "Desc", 2.0, 2),
+                new Product("C", "Desc", 3.0, 3));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            BatchResult result = spyService.createBatch(batch).await().indefinitely();
+            assertEquals(3, result.succeeded);
+            assertEquals(1, result.failed);
+            assertEquals(400, result.items.get(1).status);
+            assertEquals(201, result.items.get(3).status);
+            assertEquals(List.of(1L, 2L, 3L), List.of(result.items.get(0).id, result.items.get(2).id, result.items.get(3).id));
+        }
+        verify(spyService, times(2)).persistAll(any());
+    }
+
+    @Test
+    public void testCreateBatch_failedChunkReportsNoIds() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().voidItem())
+                .doReturn(Uni.createFrom().failure(new IllegalStateException("deadlock")))
+                .when(spyService).persistAll(any());
+        doReturn(Uni.createFrom().voidItem()).when(spyService).clearSession();
+
+        List<Product> batch = List.of(
+                new Product("A", "Desc", 1.0, 1),
+                new Product("B", "Desc", 2.0, 2),
+                new Product("C", "Desc", 3.0, 3));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            BatchResult result = spyService.createBatch(batch).await().indefinitely();
+            assertEquals(2, result.succeeded);
+            assertEquals(1, result.failed);
+            assertEquals(500, result.items.get(2).status);
+            assertEquals(2, result.items.get(2).index);
+            assertNull(result.items.get(2).id);
+            assertEquals("deadlock", result.items.get(2).error);
+        }
+    }
+
+    @Test
+    public void testUpdateBatch_marksMissingProducts() {
+        ProductService spyService = spy(productService);
+        Product existing = productWithId(1L);
+        doReturn(Uni.createFrom().item(List.of(existing))).when(spyService).listProductsByIds(List.of(1L, 2L));
+        doReturn(Uni.createFrom().voidItem()).when(spyService).clearSession();
+
+        Product first = new Product("A", "Desc", 5.0, 1);
+        first.id = 1L;
+        Product second = new Product("B", "Desc", 5.0, 1);
+        second.id = 2L;
+        Product noId = new Product("C", "Desc", 5.0, 1);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            BatchResult result = spyService.updateBatch(Arrays.asList(first, second, noId)).await().indefinitely();
+            assertEquals(200, result.items.get(0).status);
+            assertEquals(404, result.items.get(1).status);
+            assertEquals(400, result.items.get(2).status);
+        }
+        assertEquals("A", existing.name);
+    }
+
+    @Test
+    public void testDeleteBatch_marksMissingProducts() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(1L))).when(spyService).listExistingIds(List.of(1L, 2L));
+        doReturn(Uni.createFrom().item(1)).when(spyService).deleteByIds(List.of(1L));
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            BatchResult result = spyService.deleteBatch(List.of(1L, 2L)).await().indefinitely();
+            assertEquals(1, result.succeeded);
+            assertEquals(404, result.items.get(1).status);
+        }
+    }
+
+    @Test
+    public void testCreateBatch_emptyBatch() {
+        assertThrows(ValidationException.class, () -> productService.createBatch(List.of()).await().indefinitely());
+    }
+
+    @Test
+    public void testBatchesOverTheItemLimitAreRejectedAsTooLarge() {
+        List<Product> products = Collections.nCopies(11, new Product("A", "Desc", 1.0, 1));
+        List<Long> ids = Collections.nCopies(11, 1L);
+
+        productService.createBatch(products).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(PayloadTooLargeException.class, "Batch must not contain more than 10 items.");
+        productService.updateBatch(products).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(PayloadTooLargeException.class);
+        productService.deleteBatch(ids).subscribe().withSubscriber(UniAssertSubscriber.create())
+                .assertFailedWith(PayloadTooLargeException.class);
+    }
+
+    @Test
+    public void testCheckStockForCart_sumsLinesOfSameProduct() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(new StockLevel(1L, 5), new StockLevel(2L, 10))))
+                .when(spyService).listStockLevels(any());
+
+        List<StockCheckLine> cart = List.of(
+                new StockCheckLine(1L, 3),
+                new StockCheckLine(2L, 4),
+                new StockCheckLine(1L, 3),
+                new StockCheckLine(3L, 1));
+
+        StockCheckResult result = spyService.checkStock(cart).await().indefinitely();
+        assertFalse(result.allAvailable);
+        assertFalse(result.lines.get(0).available);
+        assertTrue(result.lines.get(1).available);
+        assertFalse(result.lines.get(3).found);
+        verify(spyService, times(1)).listStockLevels(any());
+    }
+
+    @Test
+    public void testCheckStockForCart_hotSkuUsesCounter() {
+        productService.stockCounters = new StockCounterEngine(Optional.of(List.of(1L)), 4);
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(5)).when(spyService).loadQuantity(1L);
+        doReturn(Uni.createFrom().item(List.of(new StockLevel(2L, 10))))
+                .when(spyService).listStockLevels(List.of(2L));
+        // The row still says 5 until the next flush
+        spyService.reserveStock(1L, 4).await().indefinitely();
+
+        StockCheckResult result = spyService.checkStock(List.of(new StockCheckLine(1L, 2), new StockCheckLine(2L, 4)))
+                .await().indefinitely();
+
+        assertFalse(result.lines.get(0).available);
+        assertTrue(result.lines.get(0).found);
+        assertTrue(result.lines.get(1).available);
+        verify(spyService, times(1)).listStockLevels(List.of(2L));
+    }
+
+    @Test
+    public void testCheckStockForCart_invalidLine() {
+        List<StockCheckLine> cart = List.of(new StockCheckLine(null, 1));
+        assertThrows(ValidationException.class, () -> productService.checkStock(cart).await().indefinitely());
+    }
+
+    @Test
+    public void testSortByPrice_rangeDescendingWithCursor() {
+        Product cheap = productWithId(7L);
+        cheap.price = 20.0;
+        Product cheaper = productWithId(3L);
+        cheaper.price = 15.0;
+        Product cheapest = productWithId(9L);
+        cheapest.price = 10.0;
+
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.of(cheap, cheaper, cheapest)))
+                .when(spyService).listProductsByPrice(any(), any(), any(), anyInt());
+
+        PriceSortParams params = new PriceSortParams(5.0, 100.0, "desc", 2, "25.0:4");
+        ProductPage<Product> page = spyService.sortByPrice(params).await().indefinitely();
+
+        assertEquals(2, page.items.size());
+        assertEquals("15.0:3", page.nextCursor);
+        verify(spyService).listProductsByPrice(
+                eq("price >= :minPrice and price <= :maxPrice and (price < :afterPrice or (price = :afterPrice and id < :afterId))"),
+                any(Parameters.class), any(Sort.class), eq(3));
+    }
+
+    @Test
+    public void testSortByPrice_invalidOrder() {
+        PriceSortParams params = new PriceSortParams(null, null, "sideways", null, null);
+        assertThrows(ValidationException.class, () -> productService.sortByPrice(params).await().indefinitely());
+    }
+
+    @Test
+    public void testSortByPrice_invalidRange() {
+        PriceSortParams params = new PriceSortParams(50.0, 10.0, "asc", null, null);
+        assertThrows(ValidationException.class, () -> productService.sortByPrice(params).await().indefinitely());
+    }
+
+    @Test
+    public void testCreate_indexesProductForSearch() {
+        Product product = new Product("Laptop Pro Max", "High-performance laptop", 1350.0, 45);
+        product.id = 1L;
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(product));
+
+            productService.create(product).await().indefinitely();
+        }
+
+        ProductPage<Product> page = productService.search("lap", null, null).await().indefinitely();
+        assertEquals(1, page.items.size());
+        assertEquals(1L, page.items.get(0).id);
+    }
+
+    @Test
+    public void testReserveStock_movesProductIntoLowStock() {
+        Product product = new Product("Desk Lamp", "LED lamp", 25.0, 12);
+        product.id = 1L;
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(product))
+                    .thenReturn(Uni.createFrom().item(1));
+
+            productService.create(product).await().indefinitely();
+            assertTrue(productService.lowStock(null, null, null).await().indefinitely().items.isEmpty());
+
+            productService.reserveStock(1L, 5).await().indefinitely();
+        }
+
+        ProductPage<StockLevel> page = productService.lowStock(null, null, null).await().indefinitely();
+        assertEquals(1, page.items.size());
+        assertEquals(7, page.items.get(0).quantity);
+        assertEquals(175.0, productService.catalogStats().inventoryValue.doubleValue());
+    }
+
+    @Test
+    public void testLowStock_pagesByQuantityThenId() {
+        for (long id = 1; id <= 3; id++) {
+            Product product = new Product("Product " + id, "Description", 1.0, (int) (4 - id));
+            product.id = id;
+            productService.catalogStatistics.put(product);
+        }
+
+        ProductPage<StockLevel> first = productService.lowStock(5, null, 2).await().indefinitely();
+        assertEquals(List.of(3L, 2L), first.items.stream().map(level -> level.id).toList());
+        assertEquals("2:2", first.nextCursor);
+
+        ProductPage<StockLevel> second = productService.lowStock(5, first.nextCursor, 2).await().indefinitely();
+        assertEquals(List.of(1L), second.items.stream().map(level -> level.id).toList());
+        assertNull(second.nextCursor);
+    }
+
+    @Test
+    public void testLowStock_invalidThresholdOrCursor() {
+        assertThrows(ValidationException.class, () -> productService.lowStock(-1, null, null).await().indefinitely());
+        assertThrows(ValidationException.class, () -> productService.lowStock(5, "abc", null).await().indefinitely());
+        assertThrows(ValidationException.class, () -> productService.lowStock(5, "3", null).await().indefinitely());
+    }
+
+    @Test
+    public void testLowStock_cursorAboveThresholdIsAnEmptyPage() {
+        Product product = new Product("Product 3", "Description", 1.0, 3);
+        product.id = 3L;
+        productService.catalogStatistics.put(product);
+
+        ProductPage<StockLevel> page = productService.lowStock(5, "7:3", null).await().indefinitely();
+        assertTrue(page.items.isEmpty());
+        assertNull(page.nextCursor);
+    }
+
+    @Test
+    public void testSearch_blankQuery() {
+        assertThrows(ValidationException.class, () -> productService.search(" ", null, null).await().indefinitely());
+    }
+
+    @Test
+    public void testTransactionsAreTimedPerOperationAndOutcome() {
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(true));
+            productService.delete(1L).await().indefinitely();
+
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().failure(new IllegalStateException("connection lost")));
+            assertThrows(IllegalStateException.class, () -> productService.delete(2L).await().indefinitely());
+        }
+
+        assertEquals(1, meterRegistry.get("product.transaction")
+                .tags("operation", "delete", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("product.transaction")
+                .tags("operation", "delete", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    public void testWritesChangeCatalogTag() {
+        var catalogTag = productService.catalogTag();
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            panache.when(() -> Panache.withTransaction(any()))
+                    .thenReturn(Uni.createFrom().item(true));
+            productService.delete(1L).await().indefinitely();
+        }
+
+        assertNotEquals(catalogTag, productService.catalogTag());
+    }
+
+    @Test
+    public void testProductTagCarriesVersion() {
+        Product product = productWithId(1L);
+        product.version = 3L;
+
+        assertEquals(new EntityTag("1-3"), productService.productTag(product));
+        assertEquals(3L, productService.expectedVersion(1L, "\"1-3\""));
+        assertNull(productService.expectedVersion(1L, null));
+        assertNull(productService.expectedVersion(1L, "*"));
+    }
+
+    @Test
+    public void testExpectedVersion_tagThatCannotMatch() {
+        assertThrows(ProductModifiedException.class, () -> productService.expectedVersion(1L, "\"2-3\""));
+        assertThrows(ProductModifiedException.class, () -> productService.expectedVersion(1L, "W/\"1-3\""));
+        assertThrows(ProductModifiedException.class, () -> productService.expectedVersion(1L, "\"1-x\""));
+        assertThrows(ValidationException.class, () -> productService.expectedVersion(1L, "\"1-3\", \"1-4\""));
+    }
+
+    @Test
+    public void testUpdate_matchingVersionIsOneStatement() {
+        ProductService spyService = spy(productService);
+        Product input = new Product("Laptop", "Desc", 20.0, 3);
+        doReturn(Uni.createFrom().item(1)).when(spyService).updateProduct(1L, input, 3L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            Product saved = spyService.update(1L, input, 3L).await().indefinitely();
+            assertEquals(1L, saved.id);
+            assertEquals(4L, saved.version);
+            assertEquals(20.0, saved.price);
+        }
+
+        verify(spyService, never()).loadVersion(any());
+        assertEquals(4L, spyService.productCache.get(1L).version);
+    }
+
+    @Test
+    public void testUpdate_staleVersion() {
+        ProductService spyService = spy(productService);
+        Product input = new Product("Laptop", "Desc", 20.0, 3);
+        doReturn(Uni.createFrom().item(0)).when(spyService).updateProduct(1L, input, 3L);
+        doReturn(Uni.createFrom().item(true)).when(spyService).productExists(1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertThrows(ProductModifiedException.class, () -> spyService.update(1L, input, 3L).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testUpdate_withoutVersionNotFound() {
+        ProductService spyService = spy(productService);
+        Product input = new Product("Laptop", "Desc", 20.0, 3);
+        doReturn(Uni.createFrom().item(0)).when(spyService).updateProduct(1L, input, null);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertThrows(ProductNotFoundException.class, () -> spyService.update(1L, input).await().indefinitely());
+        }
+        verify(spyService, never()).productExists(any());
+    }
+
+    @Test
+    public void testDelete_staleVersion() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(0L)).when(spyService).deleteProduct(1L, 3L);
+        doReturn(Uni.createFrom().item(true)).when(spyService).productExists(1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertThrows(ProductModifiedException.class, () -> spyService.delete(1L, 3L).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testDelete_staleVersionOfMissingProduct() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(0L)).when(spyService).deleteProduct(1L, 3L);
+        doReturn(Uni.createFrom().item(false)).when(spyService).productExists(1L);
+
+        try (MockedStatic<Panache> panache = mockStatic(Panache.class)) {
+            runTransactions(panache);
+
+            assertFalse(spyService.delete(1L, 3L).await().indefinitely());
+        }
+    }
+
+    @Test
+    public void testGetAllWithFields_selectsOnlyRequestedColumns() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.<Object[]>of(new Object[]{1L, "Laptop", 1350.0})))
+                .when(spyService).selectColumns(any(), anyMap(), anyInt());
+
+        List<ProductView> views = spyService.getAll(ProductField.parse("price,name,id")).await().indefinitely();
+
+        verify(spyService).selectColumns("select id, name, price from Product order by id asc", Map.of(), 0);
+        assertEquals("Laptop", views.get(0).name);
+        assertEquals(1350.0, views.get(0).price);
+        assertNull(views.get(0).description);
+    }
+
+    @Test
+    public void testProjectionsReadFromTheReplicaOutsideTheReadYourWritesWindow() {
+        productService.replicaRouting = new ReplicaRouting(true, Duration.ofSeconds(2), Duration.ofSeconds(5), productService.metrics);
+        productService.replicaReader = mock(ProductReplicaReader.class);
+        List<ProductField> columns = List.of(ProductField.ID, ProductField.NAME, ProductField.PRICE);
+        doReturn(Uni.createFrom().item(List.<Object[]>of(new Object[]{1L, "Laptop", 1350.0})))
+                .when(productService.replicaReader).listColumns(eq(columns), eq(""), eq(Map.of()), any(), eq(0));
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.<Object[]>of(new Object[]{1L, "Laptop", 1400.0})))
+                .when(spyService).selectColumns(any(), anyMap(), anyInt());
+
+        assertEquals(1350.0, spyService.getAll(ProductField.parse("id,name,price")).await().indefinitely().get(0).price);
+        verify(spyService, never()).selectColumns(any(), anyMap(), anyInt());
+
+        // Just written by this instance: the replica may not have it yet
+        productService.replicaRouting.markWritten(1L);
+        assertEquals(1400.0, spyService.getAll(ProductField.parse("id,name,price")).await().indefinitely().get(0).price);
+        verify(spyService).selectColumns("select id, name, price from Product order by id asc", Map.of(), 0);
+    }
+
+    @Test
+    public void testSortByPriceWithFields_selectsCursorColumnsButHidesThem() {
+        ProductService spyService = spy(productService);
+        doReturn(Uni.createFrom().item(List.<Object[]>of(
+                new Object[]{4L, "A", 10.0},
+                new Object[]{2L, "B", 12.5},
+                new Object[]{9L, "C", 20.0})))
+                .when(spyService).selectColumns(any(), anyMap(), anyInt());
+
+        PriceSortParams params = new PriceSortParams(null, null, "asc", 2, null);
+        ProductPage<ProductView> page = spyService.sortByPrice(params, Set.of(ProductField.NAME)).await().indefinitely();
+
+        verify(spyService).selectColumns("select id, name, price from Product order by price asc, id asc", Map.of(), 3);
+        assertEquals("12.5:2", page.nextCursor);
+        assertNull(page.items.get(0).id);
+        assertNull(page.items.get(0).price);
+        assertEquals("B", page.items.get(1).name);
+    }
+
+    @Test
+    public void testUnknownField() {
+        assertThrows(ValidationException.class, () -> ProductField.parse("name,colour"));
     }
 }
@@ -0,0 +1,107 @@
+package com.apibanking.shop.service;
+
+import com.apibanking.shop.metrics.ProductMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplicaRoutingTest {
+
+    SimpleMeterRegistry meterRegistry;
+    ProductMetrics metrics;
+    AtomicInteger replicaCalls;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ProductMetrics(meterRegistry);
+        replicaCalls = new AtomicInteger();
+    }
+
+    private ReplicaRouting routing(boolean enabled) {
+        return new ReplicaRouting(enabled, Duration.ofMinutes(1), Duration.ofMinutes(1), metrics);
+    }
+
+    private String read(ReplicaRouting routing, Long id) {
+        return routing.read(id,
+                () -> {
+                    replicaCalls.incrementAndGet();
+                    return Uni.createFrom().item("replica");
+                },
+                () -> Uni.createFrom().item("primary"))
+                .await().indefinitely();
+    }
+
+    private double reads(String target) {
+        return meterRegistry.counter("product.reads", "target", target).count();
+    }
+
+    @Test
+    public void testRead_disabledUsesPrimary() {
+        assertEquals("primary", read(routing(false), 1L));
+        assertEquals(0, replicaCalls.get());
+        assertEquals(1.0, reads("primary"));
+    }
+
+    @Test
+    public void testRead_enabledUsesReplica() {
+        ReplicaRouting routing = routing(true);
+
+        assertEquals("replica", read(routing, 1L));
+        assertEquals("replica", read(routing, null));
+        assertEquals(2.0, reads("replica"));
+    }
+
+    @Test
+    public void testRead_recentWriteReadsOwnWritesFromPrimary() {
+        ReplicaRouting routing = routing(true);
+        routing.markWritten(1L);
+
+        assertEquals("primary", read(routing, 1L));
+        // The catalog includes the write, other products do not
+        assertEquals("primary", read(routing, null));
+        assertEquals("replica", read(routing, 2L));
+    }
+
+    @Test
+    public void testRead_windowElapsedReturnsToReplica() {
+        ReplicaRouting routing = new ReplicaRouting(true, Duration.ZERO, Duration.ofMinutes(1), metrics);
+        routing.markWritten(1L);
+
+        assertEquals("replica", read(routing, 1L));
+    }
+
+    @Test
+    public void testRead_replicaFailureFallsBackAndBacksOff() {
+        ReplicaRouting routing = routing(true);
+
+        String result = routing.read(1L,
+                () -> Uni.createFrom().<String>failure(new IllegalStateException("replica down")),
+                () -> Uni.createFrom().item("primary"))
+                .await().indefinitely();
+
+        assertEquals("primary", result);
+        assertEquals(1.0, reads("fallback"));
+        // Further reads skip the replica until the retry delay has passed
+        assertEquals("primary", read(routing, 2L));
+        assertEquals(0, replicaCalls.get());
+    }
+
+    @Test
+    public void testCatalogReadsFromReplica_onlyOutsideTheWriteWindow() {
+        ReplicaRouting routing = routing(true);
+        assertTrue(routing.catalogReadsFromReplica());
+
+        routing.markWritten(1L);
+        assertFalse(routing.catalogReadsFromReplica());
+        assertFalse(routing(false).catalogReadsFromReplica());
+    }
+}
@@ -0,0 +1,113 @@
+package com.apibanking.shop.stats;
+
+import com.apibanking.shop.dto.CatalogStats;
+import com.apibanking.shop.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogStatisticsTest {
+
+    CatalogStatistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        statistics = new CatalogStatistics();
+        statistics.put(product(1L, 19.99, 3));
+        statistics.put(product(2L, 5.0, 0));
+        statistics.put(product(3L, 250.0, 40));
+    }
+
+    private static Product product(long id, double price, int quantity) {
+        Product product = new Product("Product " + id, "Description", price, quantity);
+        product.id = id;
+        return product;
+    }
+
+    private static List<Long> ids(List<CatalogStatistics.Level> levels) {
+        return levels.stream().map(CatalogStatistics.Level::id).toList();
+    }
+
+    @Test
+    public void testWritesAdjustTheTotals() {
+        statistics.put(product(3L, 250.0, 38));
+        statistics.adjustQuantity(2L, 4);
+        statistics.remove(1L);
+
+        CatalogStats stats = statistics.statistics();
+        assertEquals(2, stats.products);
+        assertEquals(42, stats.totalUnits);
+        assertEquals(0, new BigDecimal("9520").compareTo(stats.inventoryValue));
+        assertEquals(0, stats.outOfStock);
+        assertNull(stats.reconciledAt);
+    }
+
+    @Test
+    public void testValueIsExactForDecimalPrices() {
+        assertEquals(new BigDecimal("10059.97"), statistics.statistics().inventoryValue);
+    }
+
+    @Test
+    public void testLowStockIsOrderedByQuantityThenId() {
+        statistics.put(product(4L, 1.0, 3));
+
+        assertEquals(List.of(2L, 1L, 4L), ids(statistics.lowStock(3, null, 10)));
+        assertEquals(List.of(2L), ids(statistics.lowStock(2, null, 10)));
+        assertEquals(List.of(4L, 3L), ids(statistics.lowStock(100, new CatalogStatistics.Level(3, 1L), 10)));
+    }
+
+    @Test
+    public void testLowStockAfterTheThresholdIsEmpty() {
+        assertEquals(List.of(), ids(statistics.lowStock(3, new CatalogStatistics.Level(7, 3L), 10)));
+        assertEquals(List.of(), ids(statistics.lowStock(3, new CatalogStatistics.Level(3, Long.MAX_VALUE), 10)));
+    }
+
+    @Test
+    public void testLowStockReturnsOneExtraLevel() {
+        assertEquals(List.of(2L, 1L), ids(statistics.lowStock(100, null, 1)));
+    }
+
+    @Test
+    public void testStockNeverGoesBelowZero() {
+        statistics.adjustQuantity(1L, -5);
+
+        assertEquals(List.of(1L, 2L), ids(statistics.lowStock(0, null, 10)));
+        assertEquals(40, statistics.statistics().totalUnits);
+    }
+
+    @Test
+    public void testRebuildKeepsProductsWrittenDuringThePass() {
+        CatalogStatistics.Rebuild rebuild = statistics.rebuild();
+        rebuild.add(product(1L, 19.99, 3));
+        rebuild.add(product(2L, 5.0, 9));
+        rebuild.add(product(3L, 250.0, 40));
+        rebuild.add(product(5L, 2.0, 1));
+        // Written after the pass read them
+        statistics.adjustQuantity(1L, -1);
+        statistics.remove(3L);
+
+        assertTrue(rebuild.finish());
+
+        CatalogStats stats = statistics.statistics();
+        assertEquals(3, stats.products);
+        assertEquals(12, stats.totalUnits);
+        assertEquals(0, stats.outOfStock);
+        assertNotNull(stats.reconciledAt);
+        assertEquals(List.of(5L, 1L, 2L), ids(statistics.lowStock(100, null, 10)));
+    }
+
+    @Test
+    public void testNewerRebuildSupersedesOlder() {
+        CatalogStatistics.Rebuild older = statistics.rebuild();
+        CatalogStatistics.Rebuild newer = statistics.rebuild();
+        older.add(product(9L, 1.0, 1));
+
+        assertFalse(older.finish());
+        assertTrue(newer.finish());
+        assertEquals(0, statistics.statistics().products);
+    }
+}
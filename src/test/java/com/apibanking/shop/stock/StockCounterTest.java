@@ -0,0 +1,120 @@
+package com.apibanking.shop.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StockCounterTest {
+
+    @Test
+    public void testReserveUpToTheLoadedQuantity() {
+        StockCounter counter = new StockCounter(10, 4);
+
+        assertTrue(counter.reserve(7));
+        assertFalse(counter.reserve(4));
+        assertTrue(counter.reserve(3));
+        assertFalse(counter.reserve(1));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    public void testReservationSpanningStripes() {
+        // 3 units per stripe, so 10 can only be served by taking from every stripe
+        StockCounter counter = new StockCounter(12, 4);
+
+        assertTrue(counter.reserve(10));
+        assertEquals(2, counter.available());
+        assertFalse(counter.reserve(3));
+        assertEquals(2, counter.available());
+    }
+
+    @Test
+    public void testDrainReturnsNetChangeOnce() {
+        StockCounter counter = new StockCounter(10, 4);
+        counter.reserve(4);
+        counter.release(1);
+
+        assertEquals(-3, counter.drain());
+        assertEquals(0, counter.drain());
+
+        counter.restore(-3);
+        assertEquals(-3, counter.drain());
+    }
+
+    @Test
+    public void testRebaseFollowsAbsoluteWrites() {
+        StockCounter counter = new StockCounter(10, 4);
+        counter.reserve(2);
+
+        // The row was set to 5 while 2 units were reserved but not flushed yet
+        counter.rebase(5);
+        assertEquals(3, counter.available());
+        assertEquals(5, counter.durable());
+
+        counter.rebase(20);
+        assertEquals(18, counter.available());
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        StockCounter counter = new StockCounter(1_000, 8);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    int count = 1 + i % 3;
+                    if (counter.reserve(count)) {
+                        reserved.addAndGet(count);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1_000 - reserved.get(), counter.available());
+        assertTrue(reserved.get() <= 1_000);
+        assertEquals(-reserved.get(), counter.drain());
+    }
+
+    @Test
+    public void testConcurrentGatheringReservationsGetAllTheStock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                // One unit per stripe, so every reservation gathers from several stripes
+                StockCounter counter = new StockCounter(32, 32);
+                CyclicBarrier start = new CyclicBarrier(8);
+                List<Future<Boolean>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return counter.reserve(4);
+                    }));
+                }
+                for (Future<Boolean> future : futures) {
+                    assertTrue(future.get(), "round " + round + " left stock unsold");
+                }
+                assertEquals(0, counter.available());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}